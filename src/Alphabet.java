@@ -0,0 +1,64 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense remapping of a pattern's characters to symbols 1..k, with 0 for every other character.
+ *
+ * Lets automaton-based algorithms index tables by symbol instead of by char, so a table row
+ * has k + 1 entries (5 for DNA) instead of 65536. Latin-1 characters are looked up in an
+ * array (which may be a caller's scratch buffer), anything else in a map created on first use.
+ */
+class Alphabet {
+
+    static final int LATIN_SIZE = 256;
+
+    private final int[] latin;
+    private Map<Character, Integer> other;     // null while the pattern is all Latin-1
+    private final int size;
+
+    Alphabet(String pattern) {
+        this(pattern, new int[LATIN_SIZE]);
+    }
+
+    /**
+     * @param latin Holds the Latin-1 symbols; at least LATIN_SIZE long, cleared here
+     */
+    Alphabet(String pattern, int[] latin) {
+        this.latin = latin;
+        Arrays.fill(latin, 0, LATIN_SIZE, 0);
+        int next = 1;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c < 256) {
+                if (latin[c] == 0) {
+                    latin[c] = next++;
+                }
+            } else if (other == null) {
+                other = new HashMap<>();
+                other.put(c, next++);
+            } else if (!other.containsKey(c)) {
+                other.put(c, next++);
+            }
+        }
+        size = next;
+    }
+
+    /**
+     * Number of symbols, including the shared symbol 0 for characters not in the pattern
+     */
+    int size() {
+        return size;
+    }
+
+    int symbolOf(char c) {
+        if (c < 256) {
+            return latin[c];
+        }
+        if (other == null) {
+            return 0;
+        }
+        Integer symbol = other.get(c);
+        return symbol == null ? 0 : symbol;
+    }
+}
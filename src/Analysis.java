@@ -1,7 +1,5 @@
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 class Naive extends Solution {
@@ -15,11 +13,32 @@ class Naive extends Solution {
 
     @Override
     public String Solve(String text, String pattern) {
-        List<Integer> indices = new ArrayList<>();
-        int n = text.length();
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        search(text, pattern, 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, int from, int to, MatchSink matches) {
+        int n = to;
         int m = pattern.length();
 
-        for (int i = 0; i <= n - m; i++) {
+        for (int i = from; i <= n - m; i++) {
             int j;
             for (j = 0; j < m; j++) {
                 if (text.charAt(i + j) != pattern.charAt(j)) {
@@ -27,11 +46,9 @@ class Naive extends Solution {
                 }
             }
             if (j == m) {
-                indices.add(i);
+                matches.accept(i);
             }
         }
-
-        return indicesToString(indices);
     }
 }
 
@@ -44,24 +61,141 @@ class KMP extends Solution {
     public KMP() {
     }
 
+    // DFA mode limits: small pattern alphabets only (DNA has 4 symbols, protein 20),
+    // and at most this many table cells ((m + 1) * (symbols + 1) ints, 4 MB)
+    static final int DFA_MAX_SYMBOLS = 20;
+    static final int DFA_MAX_CELLS = 1 << 20;
+
     @Override
     public String Solve(String text, String pattern) {
-        List<Integer> indices = new ArrayList<>();
-        int n = text.length();
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        // Small alphabets: one table lookup per text char, no failure-link loop
+        // (automaton tables in this thread's scratch slots 2 and 3)
+        ScratchArena arena = ScratchArena.get();
+        Dfa dfa = pattern.isEmpty() ? null : Dfa.compile(pattern, arena);
+        if (dfa != null) {
+            searchDfa(text, pattern, dfa, 0, text.length(), matches);
+            return;
+        }
+
+        // Build LPS (longest proper prefix which is also suffix) array in this thread's scratch buffer
+        int[] lps = pattern.isEmpty() ? null : computeLPS(pattern, arena.ints(0, pattern.length()));
+        search(text, pattern, lps, 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        Dfa dfa = pattern.isEmpty() ? null : Dfa.compile(pattern);
+        if (dfa != null) {
+            return Prepared.ofRange((text, from, to, matches) -> searchDfa(text, pattern, dfa, from, to, matches));
+        }
+        int[] lps = pattern.isEmpty() ? null : computeLPS(pattern, new int[pattern.length()]);
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, lps, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void searchDfa(String text, String pattern, Dfa dfa, int from, int to, MatchSink matches) {
+        int n = to;
         int m = pattern.length();
 
-        // If pattern is empty, it matches at every position
-        if (m == 0) {
-            for (int i = 0; i <= n; i++) {
-                indices.add(i);
+        int[] next = dfa.next;
+        Alphabet alphabet = dfa.alphabet;
+        int accept = dfa.accept;
+        int row = 0;    // current state times the row width
+
+        for (int i = from; i < n; i++) {
+            row = next[row + alphabet.symbolOf(text.charAt(i))];
+            if (row == accept) {
+                // Take the whole periodic stretch at once; the automaton stays in the accept
+                // state, now after the last match of the run
+                int last = addPeriodicRun(text, i - m + 1, m, dfa.period, n, matches);
+                i = last + m - 1;
+            }
+        }
+    }
+
+    /**
+     * Complete KMP automaton: next[state * width + symbol] is the next state times width,
+     * so the scan never multiplies. State m (full match) continues like its longest border.
+     */
+    static class Dfa {
+        final Alphabet alphabet;
+        final int[] next;
+        final int accept;
+        final int period;   // smallest period of the pattern
+
+        private Dfa(Alphabet alphabet, int[] next, int accept, int period) {
+            this.alphabet = alphabet;
+            this.next = next;
+            this.accept = accept;
+            this.period = period;
+        }
+
+        /**
+         * Build the automaton, or return null when the pattern's alphabet or the table is too big
+         */
+        static Dfa compile(String pattern) {
+            return compile(pattern, null);
+        }
+
+        /**
+         * Same, with the tables in the arena's int slots 2 and 3 (only valid for the current call)
+         * @param arena null to allocate tables that can be kept
+         */
+        static Dfa compile(String pattern, ScratchArena arena) {
+            Alphabet alphabet = arena == null ? new Alphabet(pattern)
+                    : new Alphabet(pattern, arena.ints(2, Alphabet.LATIN_SIZE));
+            int m = pattern.length();
+            int width = alphabet.size();
+            if (width - 1 > DFA_MAX_SYMBOLS || (long) (m + 1) * width > DFA_MAX_CELLS) {
+                return null;
+            }
+
+            int cells = (m + 1) * width;
+            int[] next = arena == null ? new int[cells] : arena.ints(3, cells);
+            Arrays.fill(next, 0, width, 0);     // state 0 falls back to itself
+            int border = 0;  // state reached by the pattern without its first char (KMP fallback state)
+            for (int state = 0; state <= m; state++) {
+                if (state > 0) {
+                    System.arraycopy(next, border * width, next, state * width, width);
+                }
+                if (state < m) {
+                    int symbol = alphabet.symbolOf(pattern.charAt(state));
+                    if (state > 0) {
+                        border = next[border * width + symbol] / width;
+                    }
+                    next[state * width + symbol] = (state + 1) * width;
+                }
             }
-            return indicesToString(indices);
+            // border is now the longest proper border of the whole pattern
+            return new Dfa(alphabet, next, m * width, m - border);
         }
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, int[] lps, int from, int to, MatchSink matches) {
+        int n = to;
+        int m = pattern.length();
 
-        // Build LPS (longest proper prefix which is also suffix) array
-        int[] lps = computeLPS(pattern);
+        // If pattern is empty, it matches at every position
+        if (m == 0) {
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
+        }
 
-        int i = 0; // index in text
+        int period = m - lps[m - 1];
+        int i = from; // index in text
         int j = 0; // index in pattern
 
         while (i < n) {
@@ -71,7 +205,9 @@ class KMP extends Solution {
             }
 
             if (j == m) {
-                indices.add(i - j);
+                // Take the whole periodic stretch at once, then continue after its last match
+                int last = addPeriodicRun(text, i - m, m, period, n, matches);
+                i = last + m;
                 j = lps[j - 1];
             } else if (i < n && text.charAt(i) != pattern.charAt(j)) {
                 if (j != 0) {
@@ -81,13 +217,11 @@ class KMP extends Solution {
                 }
             }
         }
-
-        return indicesToString(indices);
     }
 
-    private int[] computeLPS(String pattern) {
+    // Fills lps[0..m-1] (lps may be longer, e.g. a scratch buffer, and needs at least one element)
+    static int[] computeLPS(String pattern, int[] lps) {
         int m = pattern.length();
-        int[] lps = new int[m];
         int len = 0;
         int i = 1;
 
@@ -122,43 +256,75 @@ class RabinKarp extends Solution {
     }
 
     private static final int PRIME = 101; // Prime number used for hashing
+    private static final int ALPHABET = 256; // Size of the input alphabet
 
     @Override
     public String Solve(String text, String pattern) {
-        List<Integer> indices = new ArrayList<>();
-        int n = text.length();
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        search(text, pattern, hashOf(pattern), highOrderFactor(pattern.length()), 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        long patternHash = hashOf(pattern);
+        long h = highOrderFactor(pattern.length());
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, patternHash, h, from, to, matches));
+    }
+
+    // Compute h = d^(m-1) % PRIME
+    private static long highOrderFactor(int m) {
+        long h = 1;
+        for (int i = 0; i < m - 1; i++) {
+            h = (h * ALPHABET) % PRIME;
+        }
+        return h;
+    }
+
+    private static long hashOf(String pattern) {
+        long patternHash = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            patternHash = (ALPHABET * patternHash + pattern.charAt(i)) % PRIME;
+        }
+        return patternHash;
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, long patternHash, long h, int from, int to,
+                        MatchSink matches) {
+        int n = to;
         int m = pattern.length();
 
         // If pattern is empty, it matches at every position
         if (m == 0) {
-            for (int i = 0; i <= n; i++) {
-                indices.add(i);
-            }
-            return indicesToString(indices);
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
         }
 
-        if (m > n) {
-            return "";
+        if (m > n - from) {
+            return;
         }
 
-        int d = 256; // Size of the input alphabet
-        long patternHash = 0;
+        int d = ALPHABET;
         long textHash = 0;
-        long h = 1;
 
-        // Compute h = d^(m-1) % PRIME
-        for (int i = 0; i < m - 1; i++) {
-            h = (h * d) % PRIME;
-        }
-
-        // Compute hash of pattern and first window of text
-        for (int i = 0; i < m; i++) {
-            patternHash = (d * patternHash + pattern.charAt(i)) % PRIME;
+        // Compute hash of the first window of text
+        for (int i = from; i < from + m; i++) {
             textHash = (d * textHash + text.charAt(i)) % PRIME;
         }
 
         // Slide pattern over text one position at a time
-        for (int i = 0; i <= n - m; i++) {
+        for (int i = from; i <= n - m; i++) {
             // If hashes match, check characters
             if (patternHash == textHash) {
                 boolean match = true;
@@ -169,7 +335,7 @@ class RabinKarp extends Solution {
                     }
                 }
                 if (match) {
-                    indices.add(i);
+                    matches.accept(i);
                 }
             }
 
@@ -183,8 +349,6 @@ class RabinKarp extends Solution {
                 }
             }
         }
-
-        return indicesToString(indices);
     }
 }
 
@@ -198,37 +362,73 @@ class BoyerMoore extends Solution {
         System.out.println("BoyerMoore registered");
     }
 
+    // Bad character tables are indexed by a character's low byte
+    static final int BAD_CHAR_TABLE_SIZE = 256;
+
     public BoyerMoore() {
     }
 
     @Override
     public String Solve(String text, String pattern) {
-        List<Integer> indices = new ArrayList<>();
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        if (pattern.isEmpty() || pattern.length() > text.length()) {
+            search(text, pattern, null, null, null, 0, text.length(), matches);
+            return;
+        }
+
+        // Preprocessing: build bad character and good suffix tables (in scratch buffers)
+        int m = pattern.length();
+        ScratchArena arena = ScratchArena.get();
+        int[] badChar = buildBadCharTable(pattern, arena.ints(2, BAD_CHAR_TABLE_SIZE));
+        int[] suffix = arena.ints(0, m);
+        boolean[] prefix = arena.booleans(0, m);
+        buildGoodSuffixTables(pattern, suffix, prefix);
+
+        search(text, pattern, badChar, suffix, prefix, 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        if (pattern.isEmpty()) {
+            return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, null, null, null, from, to, matches));
+        }
+        int[] badChar = buildBadCharTable(pattern, new int[BAD_CHAR_TABLE_SIZE]);
+        int[] suffix = new int[pattern.length()];
+        boolean[] prefix = new boolean[pattern.length()];
+        buildGoodSuffixTables(pattern, suffix, prefix);
+        return Prepared.ofRange((text, from, to, matches) ->
+                search(text, pattern, badChar, suffix, prefix, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, int[] badChar,
+                        int[] suffix, boolean[] prefix, int from, int to, MatchSink matches) {
 
-        int n = text.length();
+        int n = to;
         int m = pattern.length();
 
         // If pattern is empty, match at every position (same as other algorithms)
         if (m == 0) {
-            for (int i = 0; i <= n; i++) {
-                indices.add(i);
-            }
-            return indicesToString(indices);
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
         }
 
-        if (m > n) {
-            return indicesToString(indices);
+        if (m > n - from) {
+            return;
         }
 
-        // Preprocessing: build bad character and good suffix tables
-        Object[] prep = preprocess(pattern);
-        @SuppressWarnings("unchecked")
-        Map<Character, Integer> badChar =
-                (Map<Character, Integer>) prep[0];
-        int[] suffix = (int[]) prep[1];
-        boolean[] prefix = (boolean[]) prep[2];
-
-        int i = 0;
+        int i = from;
 
         while (i <= n - m) {
             int j = m - 1;
@@ -240,7 +440,7 @@ class BoyerMoore extends Solution {
 
             if (j < 0) {
                 // Found a full match
-                indices.add(i);
+                matches.accept(i);
 
                 // Shift after a full match (based on good suffix / prefix)
                 int shift = fullMatchShift(m, prefix);
@@ -264,44 +464,30 @@ class BoyerMoore extends Solution {
                 i += shift;
             }
         }
-
-        return indicesToString(indices);
     }
 
     // ================== PREPROCESSING ==================
 
-    private Object[] preprocess(String pattern) {
-        Map<Character, Integer> badChar = buildBadCharMap(pattern);
-        Object[] gs = buildGoodSuffixTables(pattern);
-        int[] suffix = (int[]) gs[0];
-        boolean[] prefix = (boolean[]) gs[1];
-
-        return new Object[]{badChar, suffix, prefix};
-    }
-
-    // Bad character table with Unicode support (HashMap)
-    public static Map<Character, Integer> buildBadCharMap(String pattern) {
-        Map<Character, Integer> badChar =
-                new HashMap<Character, Integer>();
+    // Bad character table: last index of each character in the pattern (-1 if absent), indexed by
+    // the character's low byte. Characters that share a low byte share the larger index, which
+    // can only shorten a shift, so the table is exact for Latin-1 and still safe beyond it
+    static int[] buildBadCharTable(String pattern, int[] table) {
+        Arrays.fill(table, 0, BAD_CHAR_TABLE_SIZE, -1);
 
         int m = pattern.length();
         for (int i = 0; i < m; i++) {
-            char c = pattern.charAt(i);
-            // Last position of this character in the pattern
-            badChar.put(c, i);
+            table[pattern.charAt(i) & 0xFF] = i;
         }
 
-        return badChar;
+        return table;
     }
 
-    // Build suffix[] and prefix[] tables for the good suffix rule
-    private Object[] buildGoodSuffixTables(String pattern) {
+    // Fill suffix[0..m-1] and prefix[0..m-1] for the good suffix rule (the arrays may be longer)
+    static void buildGoodSuffixTables(String pattern, int[] suffix, boolean[] prefix) {
         int m = pattern.length();
-        int[] suffix = new int[m];
-        boolean[] prefix = new boolean[m];
 
-        Arrays.fill(suffix, -1);
-        Arrays.fill(prefix, false);
+        Arrays.fill(suffix, 0, m, -1);
+        Arrays.fill(prefix, 0, m, false);
 
         // Take pattern[0..i] and compare it with suffixes that end at the last character
         for (int i = 0; i < m - 1; i++) {
@@ -320,22 +506,17 @@ class BoyerMoore extends Solution {
                 prefix[k] = true;
             }
         }
-
-        return new Object[]{suffix, prefix};
     }
 
     // ================== SHIFT HELPERS ==================
 
     // Shift based on the bad character rule
-    private int badCharShift(char mismatchedChar, int j,
-                             Map<Character, Integer> badChar) {
-        Integer idx = badChar.get(mismatchedChar);
-        int bcIndex = (idx == null) ? -1 : idx.intValue();
-        return j - bcIndex;
+    static int badCharShift(char mismatchedChar, int j, int[] badChar) {
+        return j - badChar[mismatchedChar & 0xFF];
     }
 
     // Shift based on the good suffix rule
-    private int goodSuffixShift(int j, int m, int[] suffix, boolean[] prefix) {
+    static int goodSuffixShift(int j, int m, int[] suffix, boolean[] prefix) {
         int k = m - 1 - j; // length of the matched suffix
 
         if (k <= 0) {
@@ -360,7 +541,7 @@ class BoyerMoore extends Solution {
     }
 
     // Shift after a full match
-    private int fullMatchShift(int m, boolean[] prefix) {
+    static int fullMatchShift(int m, boolean[] prefix) {
         // Use the longest prefix that is also a suffix
         for (int r = m - 1; r > 0; r--) {
             if (prefix[r]) {
@@ -393,30 +574,62 @@ class GoCrazy extends Solution {
 
     @Override
     public String Solve(String text, String pattern) {
-        java.util.List<Integer> indices = new java.util.ArrayList<>();
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        if (pattern.isEmpty() || text.length() < pattern.length()) {
+            search(text, pattern, null, null, 0, text.length(), matches);
+            return;
+        }
+
+        // Bad character table: reuse BoyerMoore version (both tables in this thread's scratch buffers)
+        ScratchArena arena = ScratchArena.get();
+        int[] badChar = BoyerMoore.buildBadCharTable(pattern, arena.ints(2, BoyerMoore.BAD_CHAR_TABLE_SIZE));
+
+        // LPS table for KMP (used in fallback phase)
+        int[] lps = buildLps(pattern, arena.ints(0, pattern.length()));
+
+        search(text, pattern, badChar, lps, 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        if (pattern.isEmpty()) {
+            return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, null, null, from, to, matches));
+        }
+        int[] badChar = BoyerMoore.buildBadCharTable(pattern, new int[BoyerMoore.BAD_CHAR_TABLE_SIZE]);
+        int[] lps = buildLps(pattern, new int[pattern.length()]);
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, badChar, lps, from, to, matches));
+    }
 
-        int n = text.length();
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, int[] badChar, int[] lps, int from, int to,
+                        MatchSink matches) {
+        int n = to;
         int m = pattern.length();
 
         // If pattern is empty, match at every position
         if (m == 0) {
-            for (int i = 0; i <= n; i++) {
-                indices.add(i);
-            }
-            return indicesToString(indices);
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
         }
 
-        if (n < m) {
-            return indicesToString(indices);
+        if (n - from < m) {
+            return;
         }
 
-        // Bad character table: reuse BoyerMoore version
-        Map<Character, Integer> badChar = BoyerMoore.buildBadCharMap(pattern);
-
-        // LPS table for KMP (used in fallback phase)
-        int[] lps = buildLps(pattern);
+        int period = m - lps[m - 1];    // smallest period of the pattern
 
-        int i = 0;                  // index in text (BM phase)
+        int i = from;               // index in text (BM phase)
         int smallShiftCount = 0;    // how many times in a row shift was 1
         int threshold = m;          // if we shift by 1 more than m times, BM is doing badly
 
@@ -430,19 +643,19 @@ class GoCrazy extends Solution {
             }
 
             if (j < 0) {
-                // We found a match
-                indices.add(i);
+                // We found a match; inside a periodic stretch the next ones are one period apart
+                int last = addPeriodicRun(text, i, m, period, n, matches);
 
                 // Move by 1 to also catch overlapping matches
-                i += 1;
+                i = last + 1;
                 smallShiftCount = 0;
             } else {
                 // Horspool style: shift based on the last character in the window
                 char c = text.charAt(i + m - 1);
-                Integer lastOcc = badChar.get(c);
+                int lastOcc = badChar[c & 0xFF];
 
                 int shift;
-                if (lastOcc == null) {
+                if (lastOcc < 0) {
                     // If character is not in the pattern, shift by full pattern length
                     shift = m;
                 } else {
@@ -469,17 +682,14 @@ class GoCrazy extends Solution {
 
         // Phase 2: use KMP on the remaining part of the text
         if (i <= n - m) {
-            kmpSearchFrom(text, pattern, lps, i, indices);
+            kmpSearchFrom(text, pattern, lps, i, n, matches);
         }
-
-        return indicesToString(indices);
     }
 
     // ====== KMP helpers (independent from BoyerMoore) ======
 
-    private int[] buildLps(String pattern) {
+    private int[] buildLps(String pattern, int[] lps) {
         int m = pattern.length();
-        int[] lps = new int[m];
 
         int len = 0;
         int i = 1;
@@ -507,9 +717,9 @@ class GoCrazy extends Solution {
                                String pattern,
                                int[] lps,
                                int start,
-                               List<Integer> indices) {
+                               int n,
+                               MatchSink matches) {
 
-        int n = text.length();
         int m = pattern.length();
 
         int i = start;
@@ -520,7 +730,8 @@ class GoCrazy extends Solution {
                 i++;
                 j++;
                 if (j == m) {
-                    indices.add(i - m);
+                    int last = addPeriodicRun(text, i - m, m, m - lps[m - 1], n, matches);
+                    i = last + m;
                     j = lps[j - 1];
                 }
             } else {
@@ -533,3 +744,1141 @@ class GoCrazy extends Solution {
         }
     }
 }
+
+
+
+//Two-Way string matching (Crochemore-Perrin):
+//Splits the pattern at a critical factorization x = x[0..ell] x[ell+1..m-1], found with
+//two maximal-suffix computations. The right part is matched left to right, then the left
+//part right to left. For periodic patterns a "memory" remembers how much of the left part
+//is already known to match, so no text character is compared more than twice.
+//O(n + m) time and O(1) extra space: no table is allocated for the pattern.
+
+class TwoWay extends Solution {
+    static {
+        SUBCLASSES.add(TwoWay.class);
+        System.out.println("TwoWay registered");
+    }
+
+    public TwoWay() {
+    }
+
+    @Override
+    public String Solve(String text, String pattern) {
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        if (pattern.isEmpty()) {
+            search(text, pattern, -1, 1, true, 0, text.length(), matches);
+            return;
+        }
+        int[] factorization = criticalFactorization(pattern);
+        search(text, pattern, factorization[0], factorization[1], factorization[2] == 1, 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        if (pattern.isEmpty()) {
+            return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, -1, 1, true, from, to, matches));
+        }
+        int[] factorization = criticalFactorization(pattern);
+        int ell = factorization[0];
+        int per = factorization[1];
+        boolean periodic = factorization[2] == 1;
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, ell, per, periodic, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, int ell, int per, boolean periodic, int from, int to,
+                        MatchSink matches) {
+        int n = to;
+        int m = pattern.length();
+
+        // If pattern is empty, match at every position
+        if (m == 0) {
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
+        }
+
+        int j = from; // current window start in text
+
+        if (periodic) {
+            // x[0..ell] is a suffix of x[per..per+ell]: shift by the period after a match
+            // and remember the m - per characters that are known to match
+            int memory = -1;
+            while (j <= n - m) {
+                int i = Math.max(ell, memory) + 1;
+                while (i < m && pattern.charAt(i) == text.charAt(i + j)) {
+                    i++;
+                }
+                if (i >= m) {
+                    i = ell;
+                    while (i > memory && pattern.charAt(i) == text.charAt(i + j)) {
+                        i--;
+                    }
+                    if (i <= memory) {
+                        matches.accept(j);
+                    }
+                    j += per;
+                    memory = m - per - 1;
+                } else {
+                    j += i - ell;
+                    memory = -1;
+                }
+            }
+        } else {
+            // Non-periodic: the period is larger than both halves, no memory needed
+            per = Math.max(ell + 1, m - ell - 1) + 1;
+            while (j <= n - m) {
+                int i = ell + 1;
+                while (i < m && pattern.charAt(i) == text.charAt(i + j)) {
+                    i++;
+                }
+                if (i >= m) {
+                    i = ell;
+                    while (i >= 0 && pattern.charAt(i) == text.charAt(i + j)) {
+                        i--;
+                    }
+                    if (i < 0) {
+                        matches.accept(j);
+                    }
+                    j += per;
+                } else {
+                    j += i - ell;
+                }
+            }
+        }
+    }
+
+    // ================== CRITICAL FACTORIZATION ==================
+
+    // Returns {ell, per, periodic ? 1 : 0}
+    private static int[] criticalFactorization(String pattern) {
+        int m = pattern.length();
+        int[] p = new int[1];
+        int[] q = new int[1];
+
+        // The longer of the two maximal suffixes (for < and for >) gives a critical position
+        int i = maxSuffix(pattern, p, false);
+        int j = maxSuffix(pattern, q, true);
+        int ell;
+        int per;
+        if (i > j) {
+            ell = i;
+            per = p[0];
+        } else {
+            ell = j;
+            per = q[0];
+        }
+
+        // Periodic case: x[0..ell] occurs again at position per
+        boolean periodic = per + ell + 1 <= m && pattern.regionMatches(0, pattern, per, ell + 1);
+        return new int[]{ell, per, periodic ? 1 : 0};
+    }
+
+    // Start (minus one) of the maximal suffix of pattern; period[0] receives its period.
+    // With reversed = true the alphabet order is reversed.
+    private static int maxSuffix(String pattern, int[] period, boolean reversed) {
+        int m = pattern.length();
+        int ms = -1;
+        int j = 0;
+        int k = 1;
+        int p = 1;
+
+        while (j + k < m) {
+            char a = pattern.charAt(j + k);
+            char b = pattern.charAt(ms + k);
+            int cmp = reversed ? Character.compare(b, a) : Character.compare(a, b);
+            if (cmp < 0) {
+                j += k;
+                k = 1;
+                p = j - ms;
+            } else if (cmp == 0) {
+                if (k != p) {
+                    k++;
+                } else {
+                    j += p;
+                    k = 1;
+                }
+            } else {
+                ms = j;
+                j = ms + 1;
+                k = p = 1;
+            }
+        }
+
+        period[0] = p;
+        return ms;
+    }
+}
+
+
+
+//Backward Nondeterministic DAWG Matching (Navarro & Raffinot):
+//Reads each window right to left while a bit-parallel simulation of the suffix automaton of
+//the reversed pattern tracks which pattern factors are still alive. The window is shifted past
+//the longest pattern prefix seen, which gives sublinear average time even on small alphabets
+//(DNA, binary) where bad-character shifts stay short.
+//One 64-bit word holds m <= 64. Longer patterns run BNDM on their first 64 characters and
+//verify the rest at every candidate.
+
+class BNDM extends Solution {
+    static {
+        SUBCLASSES.add(BNDM.class);
+        System.out.println("BNDM registered");
+    }
+
+    static final int WORD = 64;
+
+    public BNDM() {
+    }
+
+    @Override
+    public String Solve(String text, String pattern) {
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        search(text, pattern, pattern.isEmpty() ? null : new Masks(pattern), 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        Masks masks = pattern.isEmpty() ? null : new Masks(pattern);
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, masks, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, Masks masks, int from, int to, MatchSink matches) {
+        int n = to;
+        int m = pattern.length();
+
+        // If pattern is empty, match at every position
+        if (m == 0) {
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
+        }
+
+        int w = masks.length;            // BNDM window (the first w pattern chars)
+        long high = 1L << (w - 1);       // bit of the pattern's first character
+        int j = from;
+
+        while (j <= n - m) {
+            int i = w - 1;
+            int last = w;
+            long d = -1L;
+
+            while (i >= 0 && d != 0) {
+                d &= masks.of(text.charAt(j + i));
+                i--;
+                if ((d & high) != 0) {
+                    if (i >= 0) {
+                        // text[j+i+1 .. j+w-1] is a pattern prefix: next window starts there
+                        last = i + 1;
+                    } else if (w == m || text.regionMatches(j + w, pattern, w, m - w)) {
+                        matches.accept(j);
+                    }
+                }
+                d <<= 1;
+            }
+
+            j += last;
+        }
+    }
+
+    // Bit masks of the first min(m, 64) pattern chars: bit (w-1-k) is set in masks[c] if pattern[k] == c
+    static class Masks {
+        final int length;
+        private final long[] latin = new long[256];
+        private final Map<Character, Long> other = new HashMap<>();
+
+        Masks(String pattern) {
+            length = Math.min(pattern.length(), WORD);
+            for (int k = 0; k < length; k++) {
+                char c = pattern.charAt(k);
+                long bit = 1L << (length - 1 - k);
+                if (c < 256) {
+                    latin[c] |= bit;
+                } else {
+                    other.merge(c, bit, (a, b) -> a | b);
+                }
+            }
+        }
+
+        long of(char c) {
+            if (c < 256) {
+                return latin[c];
+            }
+            Long mask = other.get(c);
+            return mask == null ? 0L : mask;
+        }
+    }
+}
+
+
+
+//Backward Oracle Matching (Allauzen, Crochemore & Raffinot):
+//Like BNDM, but the window is read right to left through the factor oracle of the reversed
+//pattern, a deterministic automaton with m + 1 states and at most 2m - 1 transitions that
+//accepts every factor (and a few non-factors). When the oracle has no transition the read
+//suffix is not a factor, so the window can jump past it. Works for any pattern length.
+//After a match the rest of its periodic stretch is taken at once and the window jumps by the
+//pattern's period, so a^n with a^m is linear. The worst case is still O(n * m): windows that
+//are read almost whole and then rejected (a^n with b a^(m-1)) only move by one or two.
+
+class BOM extends Solution {
+    static {
+        SUBCLASSES.add(BOM.class);
+        System.out.println("BOM registered");
+    }
+
+    public BOM() {
+    }
+
+    @Override
+    public String Solve(String text, String pattern) {
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        search(text, pattern, pattern.isEmpty() ? null : new Oracle(pattern), 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        Oracle oracle = pattern.isEmpty() ? null : new Oracle(pattern);
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, oracle, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, Oracle oracle, int from, int to, MatchSink matches) {
+        int n = to;
+        int m = pattern.length();
+
+        // If pattern is empty, match at every position
+        if (m == 0) {
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
+        }
+
+        int j = from;
+        while (j <= n - m) {
+            int i = m - 1;
+            int state = 0;
+
+            while (i >= 0 && state >= 0) {
+                state = oracle.next(state, text.charAt(j + i));
+                i--;
+            }
+
+            if (state >= 0) {
+                // The oracle accepted the whole window, check that it really is the pattern
+                if (text.regionMatches(j, pattern, 0, m)) {
+                    // Two matches closer than the period would give the pattern a smaller one
+                    int last = addPeriodicRun(text, j, m, oracle.period, n, matches);
+                    j = last + oracle.period;
+                } else {
+                    j += 1;
+                }
+            } else {
+                // text[j+i+1 .. j+m-1] is not a factor: no occurrence can start at or before j+i+1
+                j += i + 2;
+            }
+        }
+    }
+
+    // Factor oracle of the reversed pattern, transitions kept as per-state edge lists
+    static class Oracle {
+        final int period;             // smallest period of the pattern
+        private final int[] head;     // first edge of each state, -1 if none
+        private final int[] nextEdge;
+        private final char[] label;
+        private final int[] target;
+        private int edges;
+
+        Oracle(String pattern) {
+            int m = pattern.length();
+            period = m - KMP.computeLPS(pattern, new int[m])[m - 1];
+            head = new int[m + 1];
+            Arrays.fill(head, -1);
+            nextEdge = new int[2 * m];
+            label = new char[2 * m];
+            target = new int[2 * m];
+
+            int[] supply = new int[m + 1];
+            supply[0] = -1;
+            for (int i = 1; i <= m; i++) {
+                char c = pattern.charAt(m - i); // reversed pattern, character i-1
+                addEdge(i - 1, c, i);
+                int k = supply[i - 1];
+                while (k > -1 && next(k, c) < 0) {
+                    addEdge(k, c, i);
+                    k = supply[k];
+                }
+                supply[i] = (k == -1) ? 0 : next(k, c);
+            }
+        }
+
+        private void addEdge(int from, char c, int to) {
+            label[edges] = c;
+            target[edges] = to;
+            nextEdge[edges] = head[from];
+            head[from] = edges++;
+        }
+
+        // Target state, or -1 when there is no transition
+        int next(int state, char c) {
+            for (int e = head[state]; e >= 0; e = nextEdge[e]) {
+                if (label[e] == c) {
+                    return target[e];
+                }
+            }
+            return -1;
+        }
+    }
+}
+
+
+
+//q-gram Horspool (HashQ, Lecroq):
+//Horspool shifts on the single last character of the window, which barely moves on small
+//alphabets like DNA where every character sits near the pattern's end. HashQ instead shifts
+//on a hash of the window's last q characters, so the shift reflects where that q-gram last
+//occurs in the pattern. q grows as the alphabet shrinks (2 for text, up to 4 for DNA) but
+//never beyond m/2, because the longest possible shift is m - q + 1.
+
+class HashQ extends Solution {
+    static {
+        SUBCLASSES.add(HashQ.class);
+        System.out.println("HashQ registered");
+    }
+
+    static final int TABLE_SIZE = 4096;   // power of two, indexed by the q-gram hash
+    static final int TABLE_MASK = TABLE_SIZE - 1;
+
+    public HashQ() {
+    }
+
+    @Override
+    public String Solve(String text, String pattern) {
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        search(text, pattern, pattern.isEmpty() ? null : new ShiftTable(pattern), 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        ShiftTable table = pattern.isEmpty() ? null : new ShiftTable(pattern);
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, table, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, ShiftTable table, int from, int to, MatchSink matches) {
+        int n = to;
+        int m = pattern.length();
+
+        // If pattern is empty, match at every position
+        if (m == 0) {
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
+        }
+
+        int q = table.q;
+        int[] shift = table.shift;
+        int end = from + m - 1;     // index of the window's last character
+
+        while (end < n) {
+            int s = shift[hash(text, end - q + 1, q)];
+            if (s == 0) {
+                // Last q-gram matches the pattern's last q-gram (or collides), verify the window
+                int start = end - m + 1;
+                if (text.regionMatches(start, pattern, 0, m)) {
+                    matches.accept(start);
+                }
+                end += table.matchShift;
+            } else {
+                end += s;
+            }
+        }
+    }
+
+    private static int hash(String s, int from, int q) {
+        int h = 0;
+        for (int k = from; k < from + q; k++) {
+            h = h * 31 + s.charAt(k);
+        }
+        return h & TABLE_MASK;
+    }
+
+    /**
+     * Pick q from the number of distinct pattern characters (a cheap alphabet estimate)
+     */
+    static int chooseQ(String pattern) {
+        int m = pattern.length();
+        long distinct = pattern.chars().distinct().count();
+        int q = distinct <= 4 ? 4 : distinct <= 16 ? 3 : 2;
+        return Math.max(1, Math.min(q, m / 2));
+    }
+
+    // Shift per hashed q-gram; 0 marks the pattern's last q-gram
+    static class ShiftTable {
+        final int q;
+        final int[] shift = new int[TABLE_SIZE];
+        final int matchShift;   // shift after checking a window whose last q-gram hit 0
+
+        ShiftTable(String pattern) {
+            int m = pattern.length();
+            q = chooseQ(pattern);
+
+            Arrays.fill(shift, m - q + 1);
+            for (int i = q - 1; i < m - 1; i++) {
+                shift[hash(pattern, i - q + 1, q)] = m - 1 - i;
+            }
+
+            int last = hash(pattern, m - q, q);
+            matchShift = shift[last];
+            shift[last] = 0;
+        }
+    }
+}
+
+
+
+//Turbo Boyer-Moore (Crochemore et al.):
+//BoyerMoore forgets everything it compared when it shifts, so on periodic input such as a text of
+//one repeated character it re-reads the same characters after every match and does O(nm) work.
+//Turbo-BM remembers the factor of the text that matched the pattern at the last shift and jumps
+//over it during the next right-to-left scan; a "turbo shift" also uses that memory on mismatches.
+//Every text character is compared at most twice, so the worst case is linear (at most 2n compares).
+//Shifts use the same bad-character map and good-suffix tables as BoyerMoore.
+
+class TurboBoyerMoore extends Solution {
+    static {
+        SUBCLASSES.add(TurboBoyerMoore.class);
+        System.out.println("TurboBoyerMoore registered");
+    }
+
+    public TurboBoyerMoore() {
+    }
+
+    @Override
+    public String Solve(String text, String pattern) {
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        if (pattern.isEmpty() || pattern.length() > text.length()) {
+            search(text, pattern, null, null, 0, 0, text.length(), matches);
+            return;
+        }
+
+        // Working tables come from this thread's scratch buffers
+        int m = pattern.length();
+        ScratchArena arena = ScratchArena.get();
+        int[] suffix = arena.ints(0, m);
+        boolean[] prefix = arena.booleans(0, m);
+        BoyerMoore.buildGoodSuffixTables(pattern, suffix, prefix);
+        int[] goodSuffix = tabulateGoodSuffix(m, suffix, prefix, arena.ints(1, m));
+        int matchShift = Math.max(1, BoyerMoore.fullMatchShift(m, prefix));
+        int[] badChar = BoyerMoore.buildBadCharTable(pattern, arena.ints(2, BoyerMoore.BAD_CHAR_TABLE_SIZE));
+        search(text, pattern, badChar, goodSuffix, matchShift, 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        if (pattern.isEmpty()) {
+            return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, null, null, 0, from, to, matches));
+        }
+        int[] badChar = BoyerMoore.buildBadCharTable(pattern, new int[BoyerMoore.BAD_CHAR_TABLE_SIZE]);
+        int[] suffix = new int[pattern.length()];
+        boolean[] prefix = new boolean[pattern.length()];
+        BoyerMoore.buildGoodSuffixTables(pattern, suffix, prefix);
+        int[] goodSuffix = tabulateGoodSuffix(pattern.length(), suffix, prefix, new int[pattern.length()]);
+        int matchShift = Math.max(1, BoyerMoore.fullMatchShift(pattern.length(), prefix));
+        return Prepared.ofRange((text, from, to, matches) ->
+                search(text, pattern, badChar, goodSuffix, matchShift, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, int[] badChar,
+                        int[] goodSuffix, int matchShift, int from, int to, MatchSink matches) {
+
+        int n = to;
+        int m = pattern.length();
+
+        // If pattern is empty, match at every position (same as other algorithms)
+        if (m == 0) {
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
+        }
+
+        int j = from;       // window start
+        int memory = 0;     // length of the text factor known to match, ending at pattern index m-1-shift
+        int shift = m;
+
+        while (j <= n - m) {
+            int i = m - 1;
+
+            // Compare from right to left, skipping the remembered factor
+            while (i >= 0 && pattern.charAt(i) == text.charAt(i + j)) {
+                i--;
+                if (memory != 0 && i == m - 1 - shift) {
+                    i -= memory;
+                }
+            }
+
+            if (i < 0) {
+                // Found a full match, the border that survives the shift is remembered
+                matches.accept(j);
+                shift = matchShift;
+                memory = m - shift;
+            } else {
+                int matched = m - 1 - i;
+                int turboShift = memory - matched;
+                int bcShift = BoyerMoore.badCharShift(text.charAt(i + j), i, badChar);
+
+                shift = Math.max(Math.max(turboShift, bcShift), goodSuffix[i]);
+                // Only a good-suffix shift keeps a factor known to match. The textbook extra rule
+                // (bad-character shift of at least memory + 1) needs the strong good-suffix table,
+                // BoyerMoore's table is the weak one, so it is left out here
+                memory = (shift == goodSuffix[i]) ? Math.min(m - shift, matched) : 0;
+            }
+
+            j += shift;
+        }
+    }
+
+    // BoyerMoore.goodSuffixShift for every mismatch index, in O(m) (at least 1)
+    private static int[] tabulateGoodSuffix(int m, int[] suffix, boolean[] prefix, int[] goodSuffix) {
+        int border = 0;     // longest suffix shorter than k that is also a prefix
+        for (int k = 0; k < m; k++) {
+            int j = m - 1 - k;
+            if (k == 0) {
+                goodSuffix[j] = 1;
+            } else if (suffix[k] != -1) {
+                goodSuffix[j] = j - suffix[k] + 1;
+            } else {
+                goodSuffix[j] = border > 0 ? m - border : m;
+            }
+            if (k > 0 && prefix[k]) {
+                border = k;
+            }
+        }
+        return goodSuffix;
+    }
+}
+
+
+
+//Kernels for very short patterns (m = 1..4):
+//m = 1 loops over String.indexOf(char), which HotSpot compiles to a vectorized memchr-style scan.
+//m = 2..4 packs the last m text chars into a long (16 bits per char) while scanning, so every
+//position is checked with one masked compare instead of a nested charAt loop. Text is copied in
+//blocks with getChars so the hot loop reads a char[]. Other lengths fall back to KMP.
+
+class ShortPattern extends Solution {
+    static {
+        SUBCLASSES.add(ShortPattern.class);
+        System.out.println("ShortPattern registered");
+    }
+
+    static final int MAX_LENGTH = 4;
+    private static final int BLOCK = 4096;
+
+    public ShortPattern() {
+    }
+
+    @Override
+    public String Solve(String text, String pattern) {
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        int m = pattern.length();
+        if (m == 1) {
+            searchChar(text, pattern.charAt(0), 0, text.length(), matches);
+        } else if (m >= 2 && m <= MAX_LENGTH) {
+            searchPacked(text, m, pack(pattern), 0, text.length(), matches);
+        } else {
+            new KMP().SolveInto(text, pattern, matches);
+        }
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        int m = pattern.length();
+        if (m == 1) {
+            char c = pattern.charAt(0);
+            return Prepared.ofRange((text, from, to, matches) -> searchChar(text, c, from, to, matches));
+        }
+        if (m >= 2 && m <= MAX_LENGTH) {
+            long packed = pack(pattern);
+            return Prepared.ofRange((text, from, to, matches) -> searchPacked(text, m, packed, from, to, matches));
+        }
+        return new KMP().prepare(pattern);
+    }
+
+    // Matches inside text[from, to)
+    private void searchChar(String text, char c, int from, int to, MatchSink matches) {
+        for (int i = indexOf(text, c, from, to); i >= 0; i = indexOf(text, c, i + 1, to)) {
+            matches.accept(i);
+        }
+    }
+
+    private void searchPacked(String text, int m, long packed, int from, int to, MatchSink matches) {
+        int n = to;
+        long mask = -1L >>> (64 - 16 * m);
+        char[] block = ScratchArena.get().chars(0, Math.min(BLOCK, n - from));   // this thread's, reused
+
+        long window = 0;    // last chars read, most recent in the low 16 bits
+        for (int start = from; start < n; start += BLOCK) {
+            int end = Math.min(start + BLOCK, n);
+            text.getChars(start, end, block, 0);
+            for (int k = 0; k < end - start; k++) {
+                window = (window << 16) | block[k];
+                if ((window & mask) == packed) {
+                    int i = start + k - m + 1;
+                    if (i >= from) {    // the window is only full after m chars
+                        matches.accept(i);
+                    }
+                }
+            }
+        }
+    }
+
+    // Pattern chars as one long, first char in the highest used bits
+    private static long pack(String pattern) {
+        long packed = 0;
+        for (int j = 0; j < pattern.length(); j++) {
+            packed = (packed << 16) | pattern.charAt(j);
+        }
+        return packed;
+    }
+}
+
+
+
+//SIMD candidate filter:
+//Compares the pattern's first and last characters against 64 window positions at a time and
+//only verifies (matchesAt) the positions where both agree. With the jdk.incubator.vector module
+//the comparison runs on the widest vectors the CPU has (16 chars per AVX2 compare, 32 with
+//AVX-512); the vector kernel lives in simd/ and is compiled and loaded only when the module is
+//available (see test.sh). Without it the same filter runs as a scalar loop.
+
+class SimdFilter extends Solution {
+    static {
+        SUBCLASSES.add(SimdFilter.class);
+        System.out.println("SimdFilter registered");
+    }
+
+    private static final int BLOCK = 1 << 14;   // text chars copied to the scan buffer at a time
+    static final CandidateFilter FILTER = loadFilter();
+
+    /**
+     * Finds candidate window starts by comparing two anchor characters
+     */
+    interface CandidateFilter {
+        /**
+         * Bit k of the result is set when chars[i + k] == first and chars[i + k + lastOffset] == last,
+         * for k in 0..63. The caller guarantees chars.length >= i + 64 + lastOffset.
+         */
+        long candidates(char[] chars, int i, char first, char last, int lastOffset);
+    }
+
+    static class ScalarCandidateFilter implements CandidateFilter {
+        @Override
+        public long candidates(char[] chars, int i, char first, char last, int lastOffset) {
+            long mask = 0;
+            for (int k = 0; k < 64; k++) {
+                if (chars[i + k] == first && chars[i + k + lastOffset] == last) {
+                    mask |= 1L << k;
+                }
+            }
+            return mask;
+        }
+    }
+
+    private static CandidateFilter loadFilter() {
+        try {
+            return (CandidateFilter) Class.forName("VectorCandidateFilter").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Kernel not compiled, or the JVM was started without --add-modules jdk.incubator.vector
+            return new ScalarCandidateFilter();
+        }
+    }
+
+    public SimdFilter() {
+    }
+
+    @Override
+    public String Solve(String text, String pattern) {
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        search(text, pattern, 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, int from, int to, MatchSink matches) {
+        int n = to;
+        int m = pattern.length();
+
+        // If pattern is empty, match at every position
+        if (m == 0) {
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
+        }
+
+        int positions = n - m + 1 - from;
+        if (positions <= 0) {
+            return;
+        }
+
+        char first = pattern.charAt(0);
+        char last = pattern.charAt(m - 1);
+        int lastOffset = m - 1;
+        // Sized for the blocks this range needs, reused across calls on this thread
+        char[] buffer = ScratchArena.get().chars(0, Math.min(BLOCK, positions) + 64 + lastOffset);
+
+        // Each block covers up to BLOCK window starts plus the chars their windows reach
+        for (int start = from; start <= n - m; start += BLOCK) {
+            int count = Math.min(BLOCK, n - m + 1 - start);
+            text.getChars(start, start + count + lastOffset, buffer, 0);
+
+            for (int p = 0; p < count; p += 64) {
+                long mask = FILTER.candidates(buffer, p, first, last, lastOffset);
+                if (count - p < 64) {
+                    mask &= (1L << (count - p)) - 1;   // ignore stale chars past the block
+                }
+                while (mask != 0) {
+                    int pos = start + p + Long.numberOfTrailingZeros(mask);
+                    if (matchesAt(text, pattern, pos)) {
+                        matches.accept(pos);
+                    }
+                    mask &= mask - 1;
+                }
+            }
+        }
+    }
+}
+
+
+
+//Rare-character anchored search:
+//Picks the rarest pattern character under a frequency model (a histogram of the text, or an
+//English/DNA prior when the pattern is prepared before any text is seen) and lets the JDK's
+//vectorized String.indexOf(char) jump between its occurrences. Each hit is checked against the
+//second rarest character first, then the whole window is verified. On natural text the rarest
+//letter of a word is often 50-100x rarer than 'e', so very few windows are ever looked at.
+
+class RareAnchor extends Solution {
+    static {
+        SUBCLASSES.add(RareAnchor.class);
+        System.out.println("RareAnchor registered");
+    }
+
+    public RareAnchor() {
+    }
+
+    @Override
+    public String Solve(String text, String pattern) {
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        if (pattern.isEmpty()) {
+            search(text, pattern, null, 0, text.length(), matches);
+            return;
+        }
+        search(text, pattern, StudentPreAnalysis.analyzePattern(pattern, CharFrequency.ofText(text)),
+                0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        if (pattern.isEmpty()) {
+            return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, null, from, to, matches));
+        }
+        StudentPreAnalysis.PatternAnalysis analysis =
+                StudentPreAnalysis.analyzePattern(pattern, CharFrequency.priorFor(pattern));
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, analysis, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, StudentPreAnalysis.PatternAnalysis analysis,
+                        int from, int to, MatchSink matches) {
+        int n = to;
+        int m = pattern.length();
+
+        // If pattern is empty, match at every position
+        if (m == 0) {
+            matches.acceptRun(from, 1, n - from + 1);
+            return;
+        }
+
+        int anchor = analysis.rareIndex;
+        char anchorChar = pattern.charAt(anchor);
+        // With a single-char pattern the second anchor is the first one again
+        int second = analysis.secondRareIndex >= 0 ? analysis.secondRareIndex : anchor;
+        char secondChar = pattern.charAt(second);
+        int lastStart = n - m;
+
+        // Window start = anchor hit - anchor, so starts come out in increasing order
+        int hitEnd = lastStart + anchor + 1;
+        for (int hit = indexOf(text, anchorChar, from + anchor, hitEnd); hit >= 0;
+             hit = indexOf(text, anchorChar, hit + 1, hitEnd)) {
+            int start = hit - anchor;
+            if (text.charAt(start + second) == secondChar && text.regionMatches(start, pattern, 0, m)) {
+                matches.accept(start);
+            }
+        }
+    }
+}
+
+
+
+//JDK baseline:
+//Loops over String.indexOf(String, int), which HotSpot replaces with a SIMD intrinsic on x86.
+//Restarting one position after each hit keeps overlapping matches. This is the bar every other
+//algorithm here has to clear to be worth choosing.
+
+class IndexOf extends Solution {
+    static {
+        SUBCLASSES.add(IndexOf.class);
+        System.out.println("IndexOf registered");
+    }
+
+    public IndexOf() {
+    }
+
+    @Override
+    public String Solve(String text, String pattern) {
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        search(text, pattern, 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        return Prepared.ofRange((text, from, to, matches) -> search(text, pattern, from, to, matches));
+    }
+
+    // Matches inside text[from, to)
+    private void search(String text, String pattern, int from, int to, MatchSink matches) {
+        int lastStart = to - pattern.length();
+
+        int i = indexOf(text, pattern, from, to);
+        while (i >= 0) {
+            matches.accept(i);
+            if (i >= lastStart) {
+                break; // empty pattern: indexOf("", n + 1) would return n again
+            }
+            i = indexOf(text, pattern, i + 1, to);
+        }
+    }
+
+    // text.indexOf(pattern, from), or -1 when no match lies inside text[from, to). Like
+    // Solution.indexOf, far from the end of the text the candidates come from the first char
+    private static int indexOf(String text, String pattern, int from, int to) {
+        int m = pattern.length();
+        if (m == 0 || text.length() - to <= to - from) {
+            int i = text.indexOf(pattern, from);
+            return i <= to - m ? i : -1;
+        }
+        char first = pattern.charAt(0);
+        int startEnd = to - m + 1;
+        for (int i = indexOf(text, first, from, startEnd); i >= 0; i = indexOf(text, first, i + 1, startEnd)) {
+            if (text.regionMatches(i, pattern, 0, m)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
+
+
+
+//Pattern-specialized Horspool:
+//Each pattern gets a PatternCompiler.Kernel. Until a pattern has been searched HOT_THRESHOLD
+//times it uses the table-driven kernel; after that PatternCompiler generates a hidden class with
+//the pattern's characters and shift table compiled in as constants, so long-lived rule sets pay
+//the class generation once and then run code the JIT can fold completely.
+//Patterns longer than PatternCompiler.MAX_UNROLLED_LENGTH stay on the table-driven kernel.
+
+class Specialized extends Solution {
+    static {
+        SUBCLASSES.add(Specialized.class);
+        System.out.println("Specialized registered");
+    }
+
+    static final int HOT_THRESHOLD = 64;
+    private static final int MAX_TRACKED_PATTERNS = 4096;
+
+    // Kernels of patterns passed to Solve, shared by all instances; least recently used
+    // patterns are dropped so their hidden classes can be unloaded
+    private static final Map<String, Entry> ENTRIES = java.util.Collections.synchronizedMap(
+            new java.util.LinkedHashMap<String, Entry>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_TRACKED_PATTERNS;
+                }
+            });
+
+    public Specialized() {
+    }
+
+    @Override
+    public String Solve(String text, String pattern) {
+        return SolveRuns(text, pattern).toString();
+    }
+
+    @Override
+    public MatchRuns SolveRuns(String text, String pattern) {
+        MatchRuns matches = new MatchRuns();
+        SolveInto(text, pattern, matches);
+        return matches;
+    }
+
+    @Override
+    public void SolveInto(String text, String pattern, MatchSink matches) {
+        if (pattern.isEmpty()) {
+            search(text, null, 0, text.length(), matches);
+            return;
+        }
+        search(text, ENTRIES.computeIfAbsent(pattern, Entry::new).kernel(), 0, text.length(), matches);
+    }
+
+    @Override
+    public Prepared prepare(String pattern) {
+        if (pattern.isEmpty()) {
+            return Prepared.ofRange((text, from, to, matches) -> search(text, null, from, to, matches));
+        }
+        Entry entry = new Entry(pattern);
+        return Prepared.ofRange((text, from, to, matches) -> search(text, entry.kernel(), from, to, matches));
+    }
+
+    // The whole scan runs inside the kernel, so a compiled kernel has the pattern in its code
+    private void search(String text, PatternCompiler.Kernel kernel, int from, int to, MatchSink matches) {
+        if (kernel == null) {
+            // Empty pattern: match at every position
+            matches.acceptRun(from, 1, to - from + 1);
+            return;
+        }
+        kernel.search(text, from, to, matches);
+    }
+
+    /**
+     * Usage count and current kernel of one pattern
+     */
+    private static class Entry {
+        private final String pattern;
+        private final java.util.concurrent.atomic.AtomicInteger uses = new java.util.concurrent.atomic.AtomicInteger();
+        private volatile PatternCompiler.Kernel kernel;
+        private volatile boolean compiled;
+
+        Entry(String pattern) {
+            this.pattern = pattern;
+            this.kernel = new PatternCompiler.GenericKernel(pattern);
+        }
+
+        PatternCompiler.Kernel kernel() {
+            if (!compiled && uses.incrementAndGet() == HOT_THRESHOLD) {
+                // Exactly one caller crosses the threshold and compiles
+                if (pattern.length() <= PatternCompiler.MAX_UNROLLED_LENGTH) {
+                    try {
+                        kernel = PatternCompiler.compile(pattern);
+                    } catch (IllegalStateException e) {
+                        // Defining the class failed, keep searching with the generic kernel
+                    }
+                }
+                compiled = true;
+            }
+            return kernel;
+        }
+    }
+}
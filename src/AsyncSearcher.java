@@ -0,0 +1,259 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous front end to the algorithms: searchAsync returns at once and the search runs
+ * on the searcher's executor, so request handlers can overlap searching with their I/O.
+ *
+ * Work runs either on a fixed pool of platform threads or, when the JVM has them, on virtual
+ * threads (CorpusScanner.newExecutor). Either way a semaphore caps the searches that are queued
+ * or running at maxPending, so a burst cannot pile up texts in memory; past the cap a search is
+ * rejected (the future fails with RejectedExecutionException) or runs on the calling thread,
+ * which slows the caller down the way ThreadPoolExecutor.CallerRunsPolicy does. The algorithm
+ * for each search is chosen by a PreAnalysis, as in BatchMatcher.
+ *
+ * Usage:
+ *   java AsyncSearcher           - Search every shared and generated test case asynchronously
+ */
+public class AsyncSearcher implements AutoCloseable {
+
+    /**
+     * What searchAsync does when maxPending searches are already queued or running
+     */
+    public enum Overflow {
+        REJECT,         // fail the returned future with RejectedExecutionException
+        CALLER_RUNS     // search on the calling thread and return a completed future
+    }
+
+    /**
+     * Matches of one search, with the algorithm that found them and how long it took
+     */
+    public static class MatchResult {
+        private final String algorithm;
+        private final MatchRuns matches;
+        private final long elapsedNanos;
+
+        MatchResult(String algorithm, MatchRuns matches, long elapsedNanos) {
+            this.algorithm = algorithm;
+            this.matches = matches;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        public MatchRuns getMatches() {
+            return matches;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * The matches in Solution.Solve format
+         */
+        @Override
+        public String toString() {
+            return matches.toString();
+        }
+    }
+
+    private final PreAnalysis preAnalysis;
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final Overflow overflow;
+    private final Semaphore permits;
+    private final Map<String, Solution> solutions = new ConcurrentHashMap<>();
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong ranByCaller = new AtomicLong();
+
+    /**
+     * @param threads Platform threads (ignored when virtual threads are used)
+     * @param maxPending Most searches queued or running at once
+     * @param virtualThreads Use a virtual thread per search when the JVM supports it
+     */
+    public AsyncSearcher(int threads, int maxPending, Overflow overflow, boolean virtualThreads) {
+        this(new StudentPreAnalysis(),
+                virtualThreads ? CorpusScanner.newExecutor(threads) : newPlatformExecutor(threads),
+                maxPending, overflow);
+    }
+
+    public AsyncSearcher(PreAnalysis preAnalysis, ExecutorService executor, int maxPending, Overflow overflow) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be at least 1: " + maxPending);
+        }
+        this.preAnalysis = preAnalysis;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.overflow = overflow;
+        this.permits = new Semaphore(maxPending);
+    }
+
+    /**
+     * Search with the algorithm the PreAnalysis picks for this input
+     */
+    public CompletableFuture<MatchResult> searchAsync(String text, String pattern) {
+        String algorithm = preAnalysis.chooseAlgorithm(text, pattern);
+        return searchAsync(text, pattern, solutionByName(algorithm != null ? algorithm : "KMP"));
+    }
+
+    public CompletableFuture<MatchResult> searchAsync(String text, String pattern, Solution algorithm) {
+        if (!permits.tryAcquire()) {
+            if (overflow == Overflow.REJECT) {
+                rejected.incrementAndGet();
+                return CompletableFuture.failedFuture(
+                        new RejectedExecutionException(maxPending + " searches already pending"));
+            }
+            ranByCaller.incrementAndGet();
+            CompletableFuture<MatchResult> future = new CompletableFuture<>();
+            run(text, pattern, algorithm, future);
+            return future;
+        }
+
+        CompletableFuture<MatchResult> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    run(text, pattern, algorithm, future);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The executor is shut down
+            permits.release();
+            rejected.incrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void run(String text, String pattern, Solution algorithm, CompletableFuture<MatchResult> future) {
+        if (future.isDone()) {
+            return;     // cancelled while queued
+        }
+        running.incrementAndGet();
+        try {
+            long start = System.nanoTime();
+            MatchRuns matches = algorithm.SolveRuns(text, pattern);
+            MatchResult result = new MatchResult(algorithm.getName(), matches, System.nanoTime() - start);
+            completed.incrementAndGet();
+            future.complete(result);
+        } catch (Throwable e) {
+            // Errors too (OutOfMemoryError on a huge text): the future must not stay pending
+            failed.incrementAndGet();
+            future.completeExceptionally(e);
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    /**
+     * Searches accepted and not finished yet (queued or running)
+     */
+    public int getInFlight() {
+        return maxPending - permits.availablePermits();
+    }
+
+    /**
+     * Searches running right now, including those on callers' threads
+     */
+    public int getRunning() {
+        return running.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Searches that overflowed and ran on the calling thread (Overflow.CALLER_RUNS)
+     */
+    public long getRanByCaller() {
+        return ranByCaller.get();
+    }
+
+    /**
+     * Stop accepting searches and wait for the pending ones to finish
+     * An interrupt ends the wait early (the searches keep running) and stays set on the thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newPlatformExecutor(int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "async-searcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Shared solution instance by algorithm name
+     */
+    private Solution solutionByName(String name) {
+        return solutions.computeIfAbsent(name, Solution::byName);
+    }
+
+    public static void main(String[] args) {
+        ManualTest.registerAlgorithms();
+
+        List<TestCase> testCases = new ArrayList<>(TestCaseLoader.loadSharedTestCases());
+        testCases.addAll(TestCaseLoader.loadGeneratedTestCases());
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        AsyncSearcher searcher = new AsyncSearcher(threads, 4 * threads, Overflow.CALLER_RUNS, false);
+        AtomicInteger wrong = new AtomicInteger();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int r = 0; r < 20; r++) {
+            for (TestCase testCase : testCases) {
+                futures.add(searcher.searchAsync(testCase.getText(), testCase.getPattern())
+                        .thenAccept(result -> {
+                            if (!result.toString().equals(testCase.getExpectedResult())) {
+                                wrong.incrementAndGet();
+                            }
+                        }));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        long elapsed = System.nanoTime() - start;
+        searcher.close();
+
+        System.out.printf("%d searches in %.2f ms on %d thread(s): %d ran on the caller, %d failed, %d wrong%n",
+                futures.size(), elapsed / 1_000_000.0, threads, searcher.getRanByCaller(),
+                searcher.getFailed(), wrong.get());
+    }
+}
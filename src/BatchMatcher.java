@@ -0,0 +1,210 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Solves large batches of (text, pattern) pairs.
+ *
+ * Pairs are grouped by pattern so each pattern is preprocessed once (Solution.prepare),
+ * with the algorithm for each group picked by a PreAnalysis. Groups run on a work-stealing
+ * ForkJoinPool, largest estimated cost first, and large groups are split further so one hot
+ * pattern cannot leave the other cores idle. Results come back in submission order.
+ *
+ * Usage:
+ *   java BatchMatcher            - Solve every shared and generated test case as one batch
+ */
+public class BatchMatcher {
+
+    // A task with less estimated work than this (in text chars) is not split further
+    private static final long SPLIT_THRESHOLD = 1 << 16;
+
+    /**
+     * One (text, pattern) pair of a batch
+     */
+    public static class Pair {
+        final String text;
+        final String pattern;
+
+        public Pair(String text, String pattern) {
+            this.text = text;
+            this.pattern = pattern;
+        }
+    }
+
+    /**
+     * All pairs of a batch that share a pattern
+     */
+    private static class Group {
+        final String pattern;
+        final List<Integer> indices = new ArrayList<>();
+        long cost;
+        Solution.Prepared prepared;
+        String algorithm;
+
+        Group(String pattern) {
+            this.pattern = pattern;
+        }
+    }
+
+    private final PreAnalysis preAnalysis;
+    private final ForkJoinPool pool;
+    private final Map<String, Solution> solutions = new ConcurrentHashMap<>();
+
+    public BatchMatcher() {
+        this(new StudentPreAnalysis(), ForkJoinPool.commonPool());
+    }
+
+    public BatchMatcher(PreAnalysis preAnalysis, ForkJoinPool pool) {
+        this.preAnalysis = preAnalysis;
+        this.pool = pool;
+    }
+
+    /**
+     * Solve every pair of the batch
+     * @return One result per pair, in the order of the input list
+     */
+    public List<String> solveAll(List<Pair> pairs) {
+        String[] results = new String[pairs.size()];
+
+        // Group by pattern, keeping first-seen order
+        Map<String, Group> byPattern = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.size(); i++) {
+            Pair pair = pairs.get(i);
+            Group group = byPattern.computeIfAbsent(pair.pattern, Group::new);
+            group.indices.add(i);
+            group.cost += pair.text.length() + pair.pattern.length();
+        }
+
+        // Longest groups first so stragglers are small
+        List<Group> groups = new ArrayList<>(byPattern.values());
+        groups.sort((a, b) -> Long.compare(b.cost, a.cost));
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                List<RecursiveAction> tasks = new ArrayList<>();
+                for (Group group : groups) {
+                    tasks.add(new GroupTask(group, pairs, results, 0, group.indices.size(), group.cost));
+                }
+                invokeAll(tasks);
+            }
+        });
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Solves a slice of one group, splitting in half while the slice is expensive
+     */
+    private class GroupTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Group group;
+        private final List<Pair> pairs;
+        private final String[] results;
+        private final int from;
+        private final int to;
+        private final long cost;
+
+        GroupTask(Group group, List<Pair> pairs, String[] results, int from, int to, long cost) {
+            this.group = group;
+            this.pairs = pairs;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.cost = cost;
+        }
+
+        @Override
+        protected void compute() {
+            Solution.Prepared prepared = preparedFor(group, pairs);
+
+            if (to - from > 1 && cost > SPLIT_THRESHOLD) {
+                // Split by cost, not by count, so both halves carry similar work
+                long half = cost / 2;
+                long leftCost = 0;
+                int mid = from;
+                while (mid < to - 1 && leftCost < half) {
+                    leftCost += pairs.get(group.indices.get(mid)).text.length() + group.pattern.length();
+                    mid++;
+                }
+                invokeAll(new GroupTask(group, pairs, results, from, mid, leftCost),
+                        new GroupTask(group, pairs, results, mid, to, cost - leftCost));
+                return;
+            }
+
+            for (int k = from; k < to; k++) {
+                int index = group.indices.get(k);
+                results[index] = prepared.Solve(pairs.get(index).text);
+            }
+        }
+    }
+
+    /**
+     * Choose the group's algorithm and preprocess its pattern (once per group)
+     */
+    private Solution.Prepared preparedFor(Group group, List<Pair> pairs) {
+        synchronized (group) {
+            if (group.prepared == null) {
+                // Route on the longest text of the group, it dominates the group's cost
+                String longest = "";
+                for (int index : group.indices) {
+                    if (pairs.get(index).text.length() >= longest.length()) {
+                        longest = pairs.get(index).text;
+                    }
+                }
+                String algorithm = preAnalysis.chooseAlgorithm(longest, group.pattern);
+                group.algorithm = algorithm != null ? algorithm : "KMP";
+                group.prepared = solutionByName(group.algorithm).prepare(group.pattern);
+            }
+            return group.prepared;
+        }
+    }
+
+    /**
+     * Shared solution instance by algorithm name
+     */
+    private Solution solutionByName(String name) {
+        return solutions.computeIfAbsent(name, Solution::byName);
+    }
+
+    public static void main(String[] args) {
+        ManualTest.registerAlgorithms();
+
+        List<TestCase> testCases = new ArrayList<>(TestCaseLoader.loadSharedTestCases());
+        testCases.addAll(TestCaseLoader.loadGeneratedTestCases());
+
+        // Repeat each case so patterns are shared the way production batches share them
+        int repeat = 20;
+        List<Pair> pairs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int r = 0; r < repeat; r++) {
+            for (TestCase testCase : testCases) {
+                pairs.add(new Pair(testCase.getText(), testCase.getPattern()));
+                expected.add(testCase.getExpectedResult());
+            }
+        }
+
+        BatchMatcher matcher = new BatchMatcher();
+        matcher.solveAll(pairs); // warm up
+
+        long start = System.nanoTime();
+        List<String> results = matcher.solveAll(pairs);
+        long batchNanos = System.nanoTime() - start;
+
+        int failed = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (!results.get(i).equals(expected.get(i))) {
+                failed++;
+            }
+        }
+
+        Set<String> patterns = new HashSet<>();
+        for (Pair pair : pairs) {
+            patterns.add(pair.pattern);
+        }
+        System.out.printf("Solved %d pairs (%d distinct patterns) on %d thread(s) in %.2f ms, %d wrong%n",
+                pairs.size(), patterns.size(), matcher.pool.getParallelism(), batchNanos / 1_000_000.0, failed);
+    }
+}
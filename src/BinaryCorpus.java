@@ -0,0 +1,251 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary test corpus (.corpus files), read by TestCaseLoader next to the JSON files.
+ *
+ * Layout (big-endian):
+ *   header:  magic "SMCORPUS", int version, int caseCount, int indexBytes
+ *   index:   per case: short nameLength, name (UTF-8),
+ *            long textOffset, int textBytes, long patternOffset, int patternBytes,
+ *            long expectedOffset, int expectedBytes, int expectedCount
+ *   payload: UTF-8 text and pattern, expected indices as delta-encoded unsigned varints
+ *
+ * Only the header and index are read when a corpus is opened. Texts and expected results
+ * are memory-mapped and decoded the first time a test case asks for them, so a corpus of
+ * thousands of multi-megabyte cases opens instantly.
+ *
+ * Usage:
+ *   java BinaryCorpus pack generated generated.corpus   - Pack testcases/generated into a corpus
+ *   java BinaryCorpus list generated.corpus             - Print the index
+ */
+public class BinaryCorpus {
+
+    static final String EXTENSION = ".corpus";
+    private static final byte[] MAGIC = "SMCORPUS".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = MAGIC.length + 4 + 4 + 4;
+    private static final int ENTRY_FIXED_BYTES = 2 + 8 + 4 + 8 + 4 + 8 + 4 + 4;
+
+    public static void main(String[] args) {
+        if (args.length >= 3 && args[0].equalsIgnoreCase("pack")) {
+            List<TestCase> testCases = TestCaseLoader.loadTestCasesFromDirectory(args[1]);
+            try {
+                long start = System.nanoTime();
+                write(testCases, Paths.get(args[2]));
+                System.out.printf("Packed %d test case(s) into %s (%.1f ms)%n",
+                        testCases.size(), args[2], (System.nanoTime() - start) / 1_000_000.0);
+            } catch (IOException e) {
+                System.err.println("Error writing corpus " + args[2] + ": " + e.getMessage());
+            }
+        } else if (args.length >= 2 && args[0].equalsIgnoreCase("list")) {
+            try {
+                List<TestCase> testCases = read(Paths.get(args[1]));
+                for (int i = 0; i < testCases.size(); i++) {
+                    System.out.printf("[%4d] %s%n", i, testCases.get(i).getName());
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading corpus " + args[1] + ": " + e.getMessage());
+            }
+        } else {
+            System.out.println("Usage: java BinaryCorpus pack <testcases subdir> <out.corpus>");
+            System.out.println("       java BinaryCorpus list <file.corpus>");
+        }
+    }
+
+    /**
+     * Write test cases to a corpus file (one case's payload in memory at a time)
+     */
+    public static void write(List<TestCase> testCases, Path file) throws IOException {
+        List<byte[]> names = new ArrayList<>();
+        long indexBytes = 0;
+        for (TestCase testCase : testCases) {
+            byte[] name = testCase.getName().getBytes(StandardCharsets.UTF_8);
+            if (name.length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Test case name too long: " + testCase.getName());
+            }
+            names.add(name);
+            indexBytes += ENTRY_FIXED_BYTES + name.length;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer index = ByteBuffer.allocate((int) (HEADER_BYTES + indexBytes));
+            index.put(MAGIC).putInt(VERSION).putInt(testCases.size()).putInt((int) indexBytes);
+
+            // Payloads go after the index; the index is filled in as they are written
+            long offset = HEADER_BYTES + indexBytes;
+            for (int i = 0; i < testCases.size(); i++) {
+                TestCase testCase = testCases.get(i);
+                byte[] text = testCase.getText().getBytes(StandardCharsets.UTF_8);
+                byte[] pattern = testCase.getPattern().getBytes(StandardCharsets.UTF_8);
+                ByteArrayOutputStream expected = new ByteArrayOutputStream();
+                int expectedCount = encodeExpected(testCase.getExpectedResult(), expected);
+
+                index.putShort((short) names.get(i).length).put(names.get(i));
+                index.putLong(offset).putInt(text.length);
+                offset += writeFully(channel, ByteBuffer.wrap(text), offset);
+                index.putLong(offset).putInt(pattern.length);
+                offset += writeFully(channel, ByteBuffer.wrap(pattern), offset);
+                index.putLong(offset).putInt(expected.size()).putInt(expectedCount);
+                offset += writeFully(channel, ByteBuffer.wrap(expected.toByteArray()), offset);
+            }
+
+            index.flip();
+            writeFully(channel, index, 0);
+        }
+    }
+
+    /**
+     * Read the index of a corpus file; payloads are mapped lazily per test case
+     */
+    public static List<TestCase> read(Path file) throws IOException {
+        List<TestCase> testCases = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!java.util.Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a corpus file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported corpus version " + version + " in " + file);
+            }
+            int caseCount = header.getInt();
+            int indexBytes = header.getInt();
+
+            // The index is small, map it in one piece
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, indexBytes);
+
+            for (int i = 0; i < caseCount; i++) {
+                byte[] name = new byte[index.getShort()];
+                index.get(name);
+                long textOffset = index.getLong();
+                int textBytes = index.getInt();
+                long patternOffset = index.getLong();
+                int patternBytes = index.getInt();
+                long expectedOffset = index.getLong();
+                int expectedBytes = index.getInt();
+                int expectedCount = index.getInt();
+
+                // Patterns are short, decode them now so the index is self-contained
+                ByteBuffer patternBuffer = ByteBuffer.allocate(patternBytes);
+                readFully(channel, patternBuffer, patternOffset);
+                String pattern = decodeUtf8(patternBuffer);
+                testCases.add(new TestCase(new String(name, StandardCharsets.UTF_8),
+                        () -> decodeUtf8(mapLazily(file, textOffset, textBytes)),
+                        pattern,
+                        () -> decodeExpected(mapLazily(file, expectedOffset, expectedBytes), expectedCount)));
+            }
+        }
+        return testCases;
+    }
+
+    // ================== PAYLOAD ENCODING ==================
+
+    /**
+     * Encode "3,10,42" as delta varints (3, 7, 32); returns the number of indices
+     */
+    static int encodeExpected(String expected, ByteArrayOutputStream out) {
+        if (expected.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        long previous = 0;
+        for (String part : expected.split(",")) {
+            long value = Long.parseLong(part.trim());
+            writeVarint(out, value - previous);
+            previous = value;
+            count++;
+        }
+        return count;
+    }
+
+    static String decodeExpected(ByteBuffer buffer, int count) {
+        StringBuilder sb = new StringBuilder(count * 8);
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value += readVarint(buffer);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    // ================== I/O HELPERS ==================
+
+    // Decodes straight from the (possibly mapped) buffer, no intermediate byte[] copy
+    private static String decodeUtf8(ByteBuffer buffer) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(buffer)
+                    .toString();
+        } catch (CharacterCodingException e) {
+            throw new UncheckedIOException("Error decoding corpus text", e);
+        }
+    }
+
+    private static ByteBuffer mapLazily(Path file, long offset, int length) {
+        // A mapping stays valid after its channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error mapping " + file, e);
+        }
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of corpus file");
+            }
+        }
+        buffer.flip();
+    }
+}
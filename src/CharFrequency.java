@@ -0,0 +1,102 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Character frequency model used to pick rare anchor characters (see RareAnchor).
+ *
+ * Either a static prior (English text, DNA) or a histogram sampled from the text itself.
+ * Only relative weights matter; characters the model has never seen get a small weight,
+ * so they count as rare.
+ */
+class CharFrequency {
+
+    private static final int SAMPLE_SIZE = 1 << 16;
+    private static final double UNSEEN = 0.5;
+
+    // Relative frequency per 1000 letters of English text
+    private static final String ENGLISH_LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+    private static final int[] ENGLISH_PER_MILLE = {
+            127, 91, 82, 75, 70, 67, 63, 61, 60, 43, 40, 28, 28, 24, 24, 22, 20, 20, 19, 15, 10, 8, 2, 2, 1, 1
+    };
+
+    static final CharFrequency ENGLISH = english();
+    static final CharFrequency DNA = dna();
+
+    private final double[] latin = new double[256];
+    private final Map<Character, Double> other = new HashMap<>();
+
+    private CharFrequency() {
+    }
+
+    double weight(char c) {
+        double w = c < 256 ? latin[c] : other.getOrDefault(c, 0.0);
+        return w > 0 ? w : UNSEEN;
+    }
+
+    /**
+     * Histogram of up to 64K chars of the text, taken as evenly spaced runs so a long text
+     * is sampled from start to end
+     */
+    static CharFrequency ofText(String text) {
+        CharFrequency model = new CharFrequency();
+        int n = text.length();
+        int run = 256;
+        int stride = n <= SAMPLE_SIZE ? run : (int) ((long) n * run / SAMPLE_SIZE);
+        for (int start = 0; start < n; start += stride) {
+            int end = Math.min(start + run, n);
+            for (int i = start; i < end; i++) {
+                model.add(text.charAt(i), 1);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Static prior for a pattern searched before its text is known: DNA when the pattern
+     * only uses nucleotide letters, English otherwise
+     */
+    static CharFrequency priorFor(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if ("ACGTNacgtn".indexOf(pattern.charAt(i)) < 0) {
+                return ENGLISH;
+            }
+        }
+        return pattern.isEmpty() ? ENGLISH : DNA;
+    }
+
+    private void add(char c, double count) {
+        if (c < 256) {
+            latin[c] += count;
+        } else {
+            other.merge(c, count, Double::sum);
+        }
+    }
+
+    private static CharFrequency english() {
+        CharFrequency model = new CharFrequency();
+        for (int k = 0; k < ENGLISH_LETTERS.length(); k++) {
+            char c = ENGLISH_LETTERS.charAt(k);
+            model.add(c, ENGLISH_PER_MILLE[k]);
+            model.add(Character.toUpperCase(c), ENGLISH_PER_MILLE[k] / 10.0);
+        }
+        model.add(' ', 180);
+        for (char c : ".,'\"-\n".toCharArray()) {
+            model.add(c, 8);
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            model.add(c, 3);
+        }
+        return model;
+    }
+
+    private static CharFrequency dna() {
+        CharFrequency model = new CharFrequency();
+        for (char c : "ACGT".toCharArray()) {
+            model.add(c, 250);
+            model.add(Character.toLowerCase(c), 25);
+        }
+        model.add('N', 1);
+        model.add('n', 1);
+        return model;
+    }
+}
@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Searches every file of a directory tree (or file list) for one pattern.
+ *
+ * The pattern is preprocessed once (Solution.prepare) and shared by all files. Files are
+ * searched as raw UTF-8 bytes (Utf8Matcher), so they are never decoded to UTF-16. Each file is
+ * searched on its own virtual thread when the JVM has them (Java 21+), otherwise on a fixed
+ * platform pool. A file is read straight into a heap byte[] and wrapped as a byte string, which
+ * is the only copy kept while it is searched; one semaphore bounds how many files are in flight
+ * and another how many bytes they hold (twice the file size, for the moment both copies exist),
+ * so a burst of large files cannot exhaust the heap. Matches are reported to the listener while
+ * each file is being searched, as they are found, from that file's scanner thread, as char
+ * offsets into the file's UTF-8 decoded text.
+ *
+ * Usage:
+ *   java CorpusScanner PATTERN PATH... [--concurrency N] [--max-memory MB] [--algorithm NAME]
+ */
+public class CorpusScanner {
+
+    private static final int DEFAULT_CONCURRENCY = 64;
+    private static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 256L << 20;
+    private static final int PERMIT_BYTES = 1 << 10;      // byte budget is counted in KiB
+
+    /**
+     * Receives matches as they are found (called from scanner threads)
+     */
+    public interface MatchListener {
+        void onMatch(Path file, int offset);
+
+        default void onError(Path file, Exception error) {
+            System.err.println("Error scanning " + file + ": " + error.getMessage());
+        }
+    }
+
+    private final Utf8Matcher matcher;
+    private final int maxConcurrency;
+    private final int maxInFlightKiB;
+    private final AtomicLong filesScanned = new AtomicLong();
+    private final AtomicLong bytesScanned = new AtomicLong();
+
+    public CorpusScanner(String pattern, Solution algorithm, int maxConcurrency) {
+        this(pattern, algorithm, maxConcurrency, DEFAULT_MAX_IN_FLIGHT_BYTES);
+    }
+
+    /**
+     * @param maxInFlightBytes Heap the files being scanned may hold at once (a larger file is
+     *                         still scanned, alone)
+     */
+    public CorpusScanner(String pattern, Solution algorithm, int maxConcurrency, long maxInFlightBytes) {
+        this.matcher = new Utf8Matcher(pattern, algorithm);
+        this.maxConcurrency = maxConcurrency;
+        this.maxInFlightKiB = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxInFlightBytes / PERMIT_BYTES));
+    }
+
+    /**
+     * Scan every regular file below the given roots (files are scanned directly)
+     */
+    public void scan(List<Path> roots, MatchListener listener) throws IOException, InterruptedException {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        Semaphore memory = new Semaphore(maxInFlightKiB);
+        ExecutorService executor = newExecutor(maxConcurrency);
+        try {
+            for (Path root : roots) {
+                try (Stream<Path> paths = Files.walk(root)) {
+                    for (Path file : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                        int cost;
+                        try {
+                            cost = memoryCost(Files.size(file));
+                        } catch (IOException e) {
+                            listener.onError(file, e);
+                            continue;
+                        }
+                        // Blocks the walker once maxConcurrency files or maxInFlightBytes are in flight
+                        permits.acquire();
+                        memory.acquire(cost);
+                        executor.execute(() -> {
+                            try {
+                                scanFile(file, listener);
+                            } catch (IOException | RuntimeException e) {
+                                listener.onError(file, e);
+                            } finally {
+                                memory.release(cost);
+                                permits.release();
+                            }
+                        });
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Permits for a file: its byte[] and byte string both exist while it is wrapped
+    private int memoryCost(long size) {
+        long kib = 2 * (size / PERMIT_BYTES + 1);
+        return (int) Math.min(kib, maxInFlightKiB);
+    }
+
+    private void scanFile(Path file, MatchListener listener) throws IOException {
+        String bytes = readByteString(file);
+        // Stream matches straight to the listener, no result string to build and re-parse
+        matcher.findInByteString(bytes, offset -> listener.onMatch(file, offset));
+        filesScanned.incrementAndGet();
+        bytesScanned.addAndGet(bytes.length());
+    }
+
+    /**
+     * Read a file into a heap array and wrap it as a byte string (see Utf8Matcher.asByteString);
+     * the array is garbage as soon as this returns
+     */
+    private static String readByteString(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large for a String: " + size + " bytes");
+            }
+            byte[] bytes = new byte[(int) size];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the file is in the array
+            }
+            return Utf8Matcher.asByteString(bytes, buffer.position());
+        }
+    }
+
+    /**
+     * Virtual-thread-per-task executor when the JVM supports it, a platform pool otherwise
+     */
+    static ExecutorService newExecutor(int platformThreads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // Before Java 21 (or with preview features disabled) there are no virtual threads
+            int threads = Math.min(platformThreads, Runtime.getRuntime().availableProcessors());
+            return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "corpus-scanner");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public long getFilesScanned() {
+        return filesScanned.get();
+    }
+
+    public long getBytesScanned() {
+        return bytesScanned.get();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java CorpusScanner PATTERN PATH... [--concurrency N] [--max-memory MB] [--algorithm NAME]");
+            return;
+        }
+
+        ManualTest.registerAlgorithms();
+
+        String pattern = args[0];
+        int concurrency = DEFAULT_CONCURRENCY;
+        long maxInFlightBytes = DEFAULT_MAX_IN_FLIGHT_BYTES;
+        String algorithmName = "GoCrazy";
+        List<Path> roots = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--concurrency") && i + 1 < args.length) {
+                concurrency = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--max-memory") && i + 1 < args.length) {
+                maxInFlightBytes = Long.parseLong(args[++i]) << 20;
+            } else if (args[i].equals("--algorithm") && i + 1 < args.length) {
+                algorithmName = args[++i];
+            } else {
+                roots.add(Paths.get(args[i]));
+            }
+        }
+
+        CorpusScanner scanner;
+        try {
+            scanner = new CorpusScanner(pattern, Solution.byName(algorithmName), concurrency, maxInFlightBytes);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        AtomicLong matches = new AtomicLong();
+        long start = System.nanoTime();
+        scanner.scan(roots, (file, offset) -> {
+            matches.incrementAndGet();
+            System.out.println(file + ":" + offset);
+        });
+        long elapsed = System.nanoTime() - start;
+
+        System.err.printf("%d match(es) in %d file(s), %d bytes, %.1f ms%n",
+                matches.get(), scanner.getFilesScanned(), scanner.getBytesScanned(), elapsed / 1_000_000.0);
+    }
+}
@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * Finds a pattern in text that arrives in pieces (a tailed log file, a socket), reporting each
+ * match once, as an absolute offset from the start of the stream, when the piece that completes
+ * it is appended. Past text is never searched again, so an append costs time proportional to
+ * its own length.
+ *
+ * Two modes:
+ *   - kmp(pattern): the KMP automaton state (how many pattern chars are matched so far) is
+ *     carried from one append to the next, one step per appended char.
+ *   - withTail(pattern, algorithm): any Solution; the last m - 1 chars are kept and searched
+ *     again in front of the next piece, since a match that spans the boundary starts there.
+ *
+ * The state is Serializable so it can be checkpointed with the file position and restored after
+ * a restart; tables are rebuilt on deserialization, after the state is checked (a checkpoint is
+ * input like any other, and only a Solution subclass is ever instantiated from it). Offsets are
+ * longs because a tailed stream can outgrow int. Not thread-safe.
+ */
+public class IncrementalMatcher implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String pattern;
+    private final String algorithmClass;    // null in KMP mode
+    private long consumed;                  // chars appended so far
+    private int matched;                    // KMP mode: length of the pattern prefix ending here
+    private String tail = "";               // tail mode: the last m - 1 chars seen
+    private boolean started;                // something (even "") was appended
+
+    private transient int[] lps;
+    private transient Solution.Prepared prepared;
+
+    private IncrementalMatcher(String pattern, Solution algorithm) {
+        this.pattern = pattern;
+        if (algorithm == null) {
+            this.algorithmClass = null;
+            lps = KMP.computeLPS(pattern, new int[Math.max(1, pattern.length())]);
+        } else {
+            this.algorithmClass = algorithm.getClass().getName();
+            prepared = algorithm.prepare(pattern);
+        }
+    }
+
+    /**
+     * Carry the KMP automaton state across appends
+     */
+    public static IncrementalMatcher kmp(String pattern) {
+        return new IncrementalMatcher(pattern, null);
+    }
+
+    /**
+     * Search each append with the given algorithm, keeping an (m - 1)-char tail
+     */
+    public static IncrementalMatcher withTail(String pattern, Solution algorithm) {
+        return new IncrementalMatcher(pattern, algorithm);
+    }
+
+    /**
+     * Feed the next piece of text
+     * @param matches Receives the absolute offset of every match that ends in this piece
+     */
+    public void append(CharSequence chunk, LongConsumer matches) {
+        int length = chunk.length();
+        int m = pattern.length();
+        if (m == 0) {
+            // The empty pattern matches at every offset, 0 included
+            for (long offset = started ? consumed + 1 : 0; offset <= consumed + length; offset++) {
+                matches.accept(offset);
+            }
+        } else if (algorithmClass == null) {
+            appendKmp(chunk, matches);
+        } else {
+            appendWithTail(chunk, matches);
+        }
+        consumed += length;
+        started = true;
+    }
+
+    /**
+     * Feed the next piece of text
+     * @return Absolute offsets of the matches that end in this piece
+     */
+    public long[] append(CharSequence chunk) {
+        LongStream.Builder offsets = LongStream.builder();
+        append(chunk, offsets);
+        return offsets.build().toArray();
+    }
+
+    private void appendKmp(CharSequence chunk, LongConsumer matches) {
+        int m = pattern.length();
+        int j = matched;
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            while (j > 0 && c != pattern.charAt(j)) {
+                j = lps[j - 1];
+            }
+            if (c == pattern.charAt(j)) {
+                j++;
+            }
+            if (j == m) {
+                matches.accept(consumed + i + 1 - m);
+                j = lps[j - 1];
+            }
+        }
+        matched = j;
+    }
+
+    private void appendWithTail(CharSequence chunk, LongConsumer matches) {
+        String window = tail + chunk;
+        // Window offset 0 is this far into the stream; a match needs at least one new char,
+        // so none of these was reported by an earlier append
+        long base = consumed - tail.length();
+        prepared.SolveInto(window, position -> matches.accept(base + position));
+        int keep = Math.min(pattern.length() - 1, window.length());
+        tail = window.substring(window.length() - keep);
+    }
+
+    /**
+     * Chars appended so far (the offset the next append starts at)
+     */
+    public long getConsumed() {
+        return consumed;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (pattern == null || tail == null) {
+            throw new InvalidObjectException("Missing pattern or tail");
+        }
+        int m = pattern.length();
+        if (consumed < 0) {
+            throw new InvalidObjectException("Negative stream offset: " + consumed);
+        }
+        if (matched < 0 || matched >= Math.max(1, m) || (algorithmClass != null && matched != 0)) {
+            throw new InvalidObjectException("Matched prefix " + matched + " out of range for pattern length " + m);
+        }
+        if (tail.length() > Math.max(0, m - 1) || tail.length() > consumed
+                || (algorithmClass == null && !tail.isEmpty())) {
+            throw new InvalidObjectException("Tail of " + tail.length() + " chars for a pattern of length " + m);
+        }
+
+        if (algorithmClass == null) {
+            lps = KMP.computeLPS(pattern, new int[Math.max(1, m)]);
+            return;
+        }
+        try {
+            // Check the type before the class is initialized or anything is instantiated
+            Class<? extends Solution> type = Class
+                    .forName(algorithmClass, false, IncrementalMatcher.class.getClassLoader())
+                    .asSubclass(Solution.class);
+            prepared = type.getDeclaredConstructor().newInstance().prepare(pattern);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            InvalidObjectException invalid =
+                    new InvalidObjectException("Cannot create algorithm " + algorithmClass);
+            invalid.initCause(e);
+            throw invalid;
+        }
+    }
+}
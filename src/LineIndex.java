@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+/**
+ * Maps char offsets of a text (as returned by Solve) to line and column numbers.
+ *
+ * The offsets of all '\n' chars are collected into a sorted int[] the first time a line is
+ * asked for, so texts that are only searched pay nothing. Collection uses String.indexOf, which
+ * the JIT compiles to a vectorized scan, and each lookup is then a binary search instead of a
+ * rescan from the start of the text. Lines and columns are 1-based like grep and compilers
+ * report them; a "\r\n" line ending is not part of the line's text.
+ *
+ * Usage:
+ *   java LineIndex PATTERN FILE [--lines]   - Print line:column of each match, or each
+ *                                             matching line once with --lines
+ */
+public class LineIndex {
+
+    private final String text;
+    private volatile int[] newlines;
+    private int newlineCount;
+
+    public LineIndex(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Line (1-based) containing the char at offset; a '\n' belongs to the line it ends
+     */
+    public int lineOf(int offset) {
+        if (offset < 0 || offset > text.length()) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " outside 0.." + text.length());
+        }
+        int[] index = newlines();
+        int found = Arrays.binarySearch(index, 0, newlineCount, offset);
+        // Either way, the number of newlines before offset
+        return (found >= 0 ? found : -(found + 1)) + 1;
+    }
+
+    /**
+     * Column (1-based, in chars) of the char at offset within its line
+     */
+    public int columnOf(int offset) {
+        return offset - lineStart(lineOf(offset)) + 1;
+    }
+
+    /**
+     * Number of lines (a trailing newline does not start another line)
+     */
+    public int lineCount() {
+        int[] index = newlines();
+        boolean trailingNewline = newlineCount > 0 && index[newlineCount - 1] == text.length() - 1;
+        return trailingNewline ? newlineCount : newlineCount + 1;
+    }
+
+    /**
+     * Offset of the first char of a line
+     */
+    public int lineStart(int line) {
+        int[] index = newlines();
+        checkLine(line);
+        return line == 1 ? 0 : index[line - 2] + 1;
+    }
+
+    /**
+     * Offset just past the last char of a line, before its "\n" or "\r\n"
+     */
+    public int lineEnd(int line) {
+        int[] index = newlines();
+        checkLine(line);
+        int end = line <= newlineCount ? index[line - 1] : text.length();
+        if (end > lineStart(line) && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    public String lineText(int line) {
+        return text.substring(lineStart(line), lineEnd(line));
+    }
+
+    /**
+     * Whole-line mode: the lines holding at least one match, each once, in increasing order
+     */
+    public MatchRuns matchingLines(MatchRuns matches) {
+        MatchRuns lines = new MatchRuns();
+        int previous = 0;
+        PrimitiveIterator.OfInt offsets = matches.iterator();
+        while (offsets.hasNext()) {
+            int offset = offsets.nextInt();
+            // An empty-pattern match at the very end is on the line after a trailing newline
+            int line = Math.min(lineOf(offset), lineCount());
+            if (line != previous) {
+                lines.add(line);
+                previous = line;
+            }
+        }
+        return lines;
+    }
+
+    private void checkLine(int line) {
+        if (line < 1 || line > newlineCount + 1) {
+            throw new IndexOutOfBoundsException("Line " + line + " outside 1.." + (newlineCount + 1));
+        }
+    }
+
+    // Build the newline offsets on first use
+    private int[] newlines() {
+        int[] index = newlines;
+        if (index == null) {
+            synchronized (this) {
+                index = newlines;
+                if (index == null) {
+                    index = build();
+                    newlines = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private int[] build() {
+        int[] index = new int[16];
+        int count = 0;
+        int at = text.indexOf('\n');
+        while (at >= 0) {
+            if (count == index.length) {
+                index = Arrays.copyOf(index, count * 2);
+            }
+            index[count++] = at;
+            at = text.indexOf('\n', at + 1);
+        }
+        // Written before the volatile store of the array, so readers of the array see it
+        newlineCount = count;
+        return index;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java LineIndex PATTERN FILE [--lines]");
+            return;
+        }
+        String pattern = args[0];
+        String text = new String(Files.readAllBytes(Paths.get(args[1])), StandardCharsets.UTF_8);
+        boolean wholeLines = args.length > 2 && args[2].equals("--lines");
+
+        MatchRuns matches = new GoCrazy().SolveRuns(text, pattern);
+        LineIndex lines = new LineIndex(text);
+        if (wholeLines) {
+            lines.matchingLines(matches).forEachPosition(
+                    line -> System.out.println(line + ":" + lines.lineText(line)));
+        } else {
+            matches.forEachPosition(
+                    offset -> System.out.println(lines.lineOf(offset) + ":" + lines.columnOf(offset)));
+        }
+        System.err.println(matches.size() + " match(es)");
+    }
+}
@@ -14,6 +14,9 @@ import java.util.*;
  *   java ManualTest share              - Run only shared tests (for students)
  *   java ManualTest hidden             - Run only hidden tests (for grading)
  *   java ManualTest preanalysis        - Run with pre-analysis comparison
+ *   java ManualTest tuned              - Run pre-analysis comparison with the tuned decision tree
+ *   java ManualTest generated          - Run the large cases written by WorkloadGenerator
+ *   java ManualTest corpus F 0-5       - Run selected cases of a binary corpus file (see BinaryCorpus)
  */
 public class ManualTest {
     
@@ -21,15 +24,7 @@ public class ManualTest {
         printHeader();
 
         // Register algorithms by loading classes
-        try {
-            Class.forName("Naive");
-            Class.forName("KMP");
-            Class.forName("RabinKarp");
-            Class.forName("BoyerMoore");
-            Class.forName("GoCrazy");
-        } catch (ClassNotFoundException e) {
-            System.err.println("Error loading algorithm classes: " + e.getMessage());
-        }
+        registerAlgorithms();
 
         // Load test cases from files
         List<TestCase> sharedTestCases = TestCaseLoader.loadSharedTestCases();
@@ -67,7 +62,38 @@ public class ManualTest {
         } else if (args[0].equalsIgnoreCase("preanalysis") || args[0].equalsIgnoreCase("pre")) {
             // Run with pre-analysis comparison
             System.out.println("Running with PRE-ANALYSIS comparison...\n");
-            runWithPreAnalysis(allTests);
+            runWithPreAnalysis(allTests, new StudentPreAnalysis());
+        } else if (args[0].equalsIgnoreCase("generated") || args[0].equalsIgnoreCase("gen")) {
+            // Run the generated benchmark corpus on its own
+            List<TestCase> generatedTests = TestCaseLoader.loadGeneratedTestCases();
+            if (generatedTests.isEmpty()) {
+                System.out.println("No generated tests found. Run 'java WorkloadGenerator' first.");
+                return;
+            }
+            System.out.println("Running GENERATED tests...\n");
+            runWithFullComparison(generatedTests, getAllIndices(generatedTests.size()));
+        } else if (args[0].equalsIgnoreCase("corpus") && args.length >= 2) {
+            // Only the corpus index is read; texts of the selected cases are mapped on demand
+            List<TestCase> corpusTests;
+            try {
+                corpusTests = BinaryCorpus.read(java.nio.file.Paths.get(args[1]));
+            } catch (java.io.IOException e) {
+                System.out.println("Error reading corpus " + args[1] + ": " + e.getMessage());
+                return;
+            }
+            List<Integer> testIndices = args.length > 2
+                    ? parseTestIndices(Arrays.copyOfRange(args, 2, args.length), corpusTests.size())
+                    : getAllIndices(corpusTests.size());
+            if (testIndices.isEmpty()) {
+                System.out.println("No valid test indices provided. Use 'java BinaryCorpus list " + args[1] + "' to see them.");
+                return;
+            }
+            System.out.println("Running " + testIndices.size() + " of " + corpusTests.size() + " CORPUS tests...\n");
+            runWithFullComparison(corpusTests, testIndices);
+        } else if (args[0].equalsIgnoreCase("tuned")) {
+            // Run pre-analysis comparison with the rules fitted by ThresholdTuner
+            System.out.println("Running with TUNED PRE-ANALYSIS comparison...\n");
+            runWithPreAnalysis(allTests, new TableDrivenPreAnalysis());
         } else {
             // Parse test indices
             List<Integer> testIndices = parseTestIndices(args, allTests.size());
@@ -79,6 +105,31 @@ public class ManualTest {
         }
     }
     
+    /**
+     * Load every algorithm class so its static block adds it to Solution.SUBCLASSES
+     */
+    static void registerAlgorithms() {
+        try {
+            Class.forName("Naive");
+            Class.forName("KMP");
+            Class.forName("RabinKarp");
+            Class.forName("BoyerMoore");
+            Class.forName("GoCrazy");
+            Class.forName("TwoWay");
+            Class.forName("BNDM");
+            Class.forName("BOM");
+            Class.forName("HashQ");
+            Class.forName("TurboBoyerMoore");
+            Class.forName("ShortPattern");
+            Class.forName("SimdFilter");
+            Class.forName("RareAnchor");
+            Class.forName("IndexOf");
+            Class.forName("Specialized");
+        } catch (ClassNotFoundException e) {
+            System.err.println("Error loading algorithm classes: " + e.getMessage());
+        }
+    }
+
     /**
      * Run tests with full comparison tables (time comparison + algorithm comparison)
      */
@@ -112,16 +163,13 @@ public class ManualTest {
 
     /**
      * Run with pre-analysis comparison
-     * This tests YOUR PreAnalysis implementation (StudentPreAnalysis)
+     * This tests YOUR PreAnalysis implementation (StudentPreAnalysis) or the tuned rules
      */
-    private static void runWithPreAnalysis(List<TestCase> allTests) {
+    private static void runWithPreAnalysis(List<TestCase> allTests, PreAnalysis preAnalysis) {
         System.out.println("Running pre-analysis comparison on all test cases...\n");
-        System.out.println("NOTE: This uses YOUR StudentPreAnalysis implementation.");
+        System.out.println("NOTE: This uses " + preAnalysis.getClass().getSimpleName() + ".");
         System.out.println("      Make sure to implement the chooseAlgorithm() method!\n");
 
-        // Use StudentPreAnalysis - this is YOUR implementation
-        PreAnalysis preAnalysis = new StudentPreAnalysis();
-
         List<PreAnalysisComparison.ComparisonResult> preAnalysisResults =
                 PreAnalysisComparison.runComparison(preAnalysis, allTests);
 
@@ -174,6 +222,9 @@ public class ManualTest {
         System.out.println("  java ManualTest share        - Run only shared tests (for students)");
         System.out.println("  java ManualTest hidden       - Run only hidden tests (for grading)");
         System.out.println("  java ManualTest preanalysis  - Run with pre-analysis comparison");
+        System.out.println("  java ManualTest tuned        - Run pre-analysis comparison with tuned rules");
+        System.out.println("  java ManualTest generated    - Run the cases written by WorkloadGenerator");
+        System.out.println("  java ManualTest corpus F 0-5 - Run cases 0 through 5 of corpus file F");
         System.out.println("  java ManualTest list         - Show this list");
     }
     
@@ -0,0 +1,246 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the matches of one search as they are found, at the pace the subscriber requests.
+ *
+ * The text is scanned in steps of STEP_POSITIONS positions (OVERLAP_FACTOR * m for longer
+ * patterns) with Solution.SolveWithin, whose return value is the position to resume at, so any
+ * algorithm can pause between steps without keeping state of its own. Each subscription prepares
+ * the pattern once, before its first step, and every step searches its range of the text in
+ * place. Pausing is not free: a step starts from scratch, so the left-to-right scans read the
+ * m - 1 chars before it again; with steps of at least OVERLAP_FACTOR * m positions that stays a
+ * bounded fraction of the scan. A step only runs when the subscriber has outstanding demand and
+ * the matches of the previous step are all delivered, so the first match arrives after one
+ * step instead of after the whole text, and at most one step's matches are buffered (as
+ * MatchRuns, so periodic matches stay compact).
+ *
+ * Every subscriber gets its own scan from the start of the text. Signals are delivered on the
+ * executor, one at a time per subscription.
+ *
+ * Usage:
+ *   java MatchPublisher PATTERN FILE [LIMIT]   - Print the first LIMIT matches (default 10)
+ */
+public class MatchPublisher implements Flow.Publisher<MatchPublisher.Match> {
+
+    static final int STEP_POSITIONS = 1 << 16;
+    static final int OVERLAP_FACTOR = SearchBudget.OVERLAP_FACTOR;
+
+    /**
+     * One occurrence of the pattern
+     */
+    public static class Match {
+        private final int offset;
+        private final int length;
+
+        Match(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * Offset just past the match
+         */
+        public int getEnd() {
+            return offset + length;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(offset);
+        }
+    }
+
+    private final String text;
+    private final String pattern;
+    private final Solution algorithm;
+    private final Executor executor;
+    private final int stepPositions;
+
+    public MatchPublisher(String text, String pattern, Solution algorithm) {
+        this(text, pattern, algorithm, ForkJoinPool.commonPool());
+    }
+
+    public MatchPublisher(String text, String pattern, Solution algorithm, Executor executor) {
+        this.text = text;
+        this.pattern = pattern;
+        this.algorithm = algorithm;
+        this.executor = executor;
+        this.stepPositions = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(STEP_POSITIONS, (long) OVERLAP_FACTOR * pattern.length()));
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Match> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        ScanSubscription subscription = new ScanSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * One subscriber's scan: the prepared pattern, the resume position, the undelivered matches
+     * of the last step and the outstanding demand
+     */
+    private class ScanSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Match> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingSignals = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable badRequest;
+
+        // Only touched by the thread that is draining
+        private Solution.Prepared prepared;
+        private int resumeAt = 0;
+        private MatchRuns buffered = new MatchRuns();
+        private int run;
+        private int index;
+        private boolean done;
+
+        ScanSubscription(Flow.Subscriber<? super Match> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                // Saturate at Long.MAX_VALUE (unbounded demand)
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        // Make sure a drain runs after this call; only one runs at a time
+        private void signal() {
+            if (pendingSignals.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    cancelled = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!done && !cancelled) {
+                    try {
+                        emit();
+                    } catch (RuntimeException e) {
+                        done = true;
+                        subscriber.onError(e);
+                    }
+                }
+                missed = pendingSignals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            if (badRequest != null) {
+                done = true;
+                subscriber.onError(badRequest);
+                return;
+            }
+            while (!cancelled) {
+                if (run < buffered.runCount()) {
+                    if (demand.get() == 0) {
+                        return;     // paused until the next request
+                    }
+                    int offset = buffered.start(run) + index * buffered.step(run);
+                    if (++index == buffered.count(run)) {
+                        run++;
+                        index = 0;
+                    }
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(new Match(offset, pattern.length()));
+                } else if (resumeAt < 0) {
+                    done = true;
+                    subscriber.onComplete();
+                    return;
+                } else if (demand.get() == 0) {
+                    return;         // don't scan ahead of demand
+                } else {
+                    // Next step of the scan, from where the previous one stopped
+                    if (prepared == null) {
+                        prepared = algorithm.prepare(pattern);
+                    }
+                    buffered = new MatchRuns();
+                    run = 0;
+                    index = 0;
+                    resumeAt = algorithm.SolveWithin(prepared, text, pattern, resumeAt,
+                            SearchBudget.ofPositions(stepPositions), buffered);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: java MatchPublisher PATTERN FILE [LIMIT]");
+            return;
+        }
+        String pattern = args[0];
+        String text = new String(Files.readAllBytes(Paths.get(args[1])), StandardCharsets.UTF_8);
+        int limit = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        CountDownLatch finished = new CountDownLatch(1);
+        long start = System.nanoTime();
+        new MatchPublisher(text, pattern, new GoCrazy()).subscribe(new Flow.Subscriber<Match>() {
+            private Flow.Subscription subscription;
+            private int received;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Match match) {
+                System.out.printf("%d (%.2f ms)%n", match.getOffset(), (System.nanoTime() - start) / 1_000_000.0);
+                if (++received == limit) {
+                    subscription.cancel();
+                    finished.countDown();
+                } else {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                System.err.println("Error: " + error);
+                finished.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                finished.countDown();
+            }
+        });
+        finished.await();
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Match positions stored as arithmetic runs (start, step, count), in increasing order.
+ *
+ * A periodic pattern inside a periodic stretch of text matches every period chars, and an
+ * empty pattern matches at all n + 1 positions; as runs those are one entry instead of
+ * millions of indices. Positions are appended in increasing order with add() (consecutive
+ * positions with equal gaps are merged automatically) or a whole run at once with addRun().
+ * The legacy comma-separated string is only built when toString() is called.
+ */
+public class MatchRuns implements Iterable<Integer>, MatchSink {
+
+    private int[] starts = new int[8];
+    private int[] steps = new int[8];
+    private int[] counts = new int[8];
+    private int runs;
+    private int last = -1;
+    private long size;
+    private String legacy;
+
+    /**
+     * Append one position (must be greater than every position added so far)
+     */
+    public void add(int position) {
+        legacy = null;
+        size++;
+        int r = runs - 1;
+        if (r >= 0) {
+            if (counts[r] == 1) {
+                steps[r] = position - starts[r];
+                counts[r] = 2;
+                last = position;
+                return;
+            }
+            if (position - last == steps[r]) {
+                counts[r]++;
+                last = position;
+                return;
+            }
+        }
+        if (runs == starts.length) {
+            starts = Arrays.copyOf(starts, runs * 2);
+            steps = Arrays.copyOf(steps, runs * 2);
+            counts = Arrays.copyOf(counts, runs * 2);
+        }
+        starts[runs] = position;
+        steps[runs] = 0;
+        counts[runs] = 1;
+        runs++;
+        last = position;
+    }
+
+    /**
+     * Append the positions start, start + step, ..., start + (count - 1) * step in O(1)
+     */
+    public void addRun(int start, int step, int count) {
+        if (count <= 0) {
+            return;
+        }
+        add(start);
+        if (count == 1) {
+            return;
+        }
+        add(start + step);
+
+        // The last run now ends with start + step; extend it by the remaining count - 2 positions
+        int remaining = count - 2;
+        int r = runs - 1;
+        if (counts[r] == 1) {
+            steps[r] = step;
+        }
+        counts[r] += remaining;
+        last = start + (count - 1) * step;
+        size += remaining;
+    }
+
+    @Override
+    public void accept(int position) {
+        add(position);
+    }
+
+    @Override
+    public void acceptRun(int start, int step, int count) {
+        addRun(start, step, count);
+    }
+
+    /**
+     * Send every run to a sink, unexpanded
+     */
+    public void sendTo(MatchSink sink) {
+        for (int r = 0; r < runs; r++) {
+            sink.acceptRun(starts[r], steps[r], counts[r]);
+        }
+    }
+
+    /**
+     * Number of match positions
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Number of stored runs
+     */
+    public int runCount() {
+        return runs;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int start(int run) {
+        return starts[run];
+    }
+
+    public int step(int run) {
+        return steps[run];
+    }
+
+    public int count(int run) {
+        return counts[run];
+    }
+
+    /**
+     * Visit every position in increasing order
+     */
+    public void forEachPosition(IntConsumer action) {
+        for (int r = 0; r < runs; r++) {
+            int position = starts[r];
+            for (int k = 0; k < counts[r]; k++) {
+                action.accept(position);
+                position += steps[r];
+            }
+        }
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int run;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return run < runs;
+            }
+
+            @Override
+            public int nextInt() {
+                if (run >= runs) {
+                    throw new NoSuchElementException();
+                }
+                int position = starts[run] + index * steps[run];
+                if (++index == counts[run]) {
+                    run++;
+                    index = 0;
+                }
+                return position;
+            }
+        };
+    }
+
+    /**
+     * The legacy result format of Solution.Solve ("3,10,42"), built on first use
+     */
+    @Override
+    public String toString() {
+        if (legacy == null) {
+            StringBuilder sb = new StringBuilder((int) Math.min(size * 8, 1 << 24));
+            forEachPosition(position -> {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(position);
+            });
+            legacy = sb.toString();
+        }
+        return legacy;
+    }
+
+    /**
+     * Runs from a legacy result string
+     */
+    public static MatchRuns parse(String result) {
+        MatchRuns matches = new MatchRuns();
+        int n = result.length();
+        int value = 0;
+        boolean inNumber = false;
+        for (int i = 0; i < n; i++) {
+            char c = result.charAt(i);
+            if (c == ',') {
+                if (inNumber) {
+                    matches.add(value);
+                }
+                value = 0;
+                inNumber = false;
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                inNumber = true;
+            }
+        }
+        if (inNumber) {
+            matches.add(value);
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,41 @@
+import java.util.function.IntConsumer;
+
+/**
+ * Receives match positions as an algorithm finds them, in increasing order.
+ *
+ * Lets a search stream its matches (to a file, a socket, a counter) instead of building the
+ * comma-separated result string. Algorithms that recognize periodic stretches report them
+ * with acceptRun, which sinks such as MatchRuns store without expanding.
+ */
+@FunctionalInterface
+public interface MatchSink extends IntConsumer {
+
+    /**
+     * The positions start, start + step, ..., start + (count - 1) * step
+     */
+    default void acceptRun(int start, int step, int count) {
+        int position = start;
+        for (int k = 0; k < count; k++) {
+            accept(position);
+            position += step;
+        }
+    }
+
+    /**
+     * A sink that adds base to every position before passing it on (for a search of a copy
+     * of the text that starts at base)
+     */
+    static MatchSink shifted(MatchSink sink, int base) {
+        return new MatchSink() {
+            @Override
+            public void accept(int position) {
+                sink.accept(base + position);
+            }
+
+            @Override
+            public void acceptRun(int start, int step, int count) {
+                sink.acceptRun(base + start, step, count);
+            }
+        };
+    }
+}
@@ -0,0 +1,440 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compiles a pattern into a hidden class (MethodHandles.Lookup.defineHiddenClass) whose code
+ * is the whole Horspool scan loop with the pattern baked in: verification is one unrolled
+ * compare per pattern char against a constant, and the shift table is a lookupswitch over
+ * constant keys. The JIT then sees no pattern array, no table loads and no calls per position
+ * (one call per search, into the generated class, however many patterns are compiled).
+ *
+ * Class files are written by hand (the ClassFile API needs Java 22+). Version 49 is used so no
+ * StackMapTable is needed for the loop's backward branch. The class is not defined STRONG, so
+ * it is unloaded once its kernel is unreachable.
+ * Used by the Specialized solution for patterns that stay hot.
+ */
+class PatternCompiler {
+
+    // Longest pattern that is unrolled (keeps every branch offset well inside 16 bits)
+    static final int MAX_UNROLLED_LENGTH = 256;
+
+    private static final String KERNEL_NAME = "PatternCompiler$Kernel";
+    private static int classCounter = 0;
+
+    /**
+     * A pattern ready to be searched with Horspool's algorithm
+     */
+    interface Kernel {
+        /**
+         * Report every occurrence of the (non-empty) pattern inside text[from, to), in increasing order
+         */
+        void search(String text, int from, int to, MatchSink matches);
+    }
+
+    /**
+     * Table-driven kernel, used before a pattern is hot or when it cannot be compiled
+     */
+    static class GenericKernel implements Kernel {
+        private final String pattern;
+        private final Map<Character, Integer> shifts;
+
+        GenericKernel(String pattern) {
+            this.pattern = pattern;
+            this.shifts = horspoolShifts(pattern);
+        }
+
+        @Override
+        public void search(String text, int from, int to, MatchSink matches) {
+            int n = to;
+            int m = pattern.length();
+            int i = from;
+            while (i <= n - m) {
+                if (matchesAt(text, i)) {
+                    matches.accept(i);
+                }
+                i += shift(text.charAt(i + m - 1));
+            }
+        }
+
+        private boolean matchesAt(String text, int pos) {
+            for (int j = pattern.length() - 1; j >= 0; j--) {
+                if (text.charAt(pos + j) != pattern.charAt(j)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int shift(char c) {
+            Integer s = shifts.get(c);
+            return s == null ? pattern.length() : s;
+        }
+    }
+
+    /**
+     * Horspool shifts for the chars of pattern[0..m-2]; every other char shifts by m
+     */
+    static Map<Character, Integer> horspoolShifts(String pattern) {
+        int m = pattern.length();
+        Map<Character, Integer> shifts = new HashMap<>();
+        for (int i = 0; i < m - 1; i++) {
+            shifts.put(pattern.charAt(i), m - 1 - i);
+        }
+        return shifts;
+    }
+
+    /**
+     * Generate, define and instantiate the specialized kernel for a pattern
+     * @throws IllegalArgumentException if the pattern is empty or longer than MAX_UNROLLED_LENGTH
+     */
+    static Kernel compile(String pattern) {
+        if (pattern.isEmpty() || pattern.length() > MAX_UNROLLED_LENGTH) {
+            throw new IllegalArgumentException("Cannot specialize a pattern of length " + pattern.length());
+        }
+        byte[] classBytes = generate(pattern);
+        try {
+            MethodHandles.Lookup hidden = MethodHandles.lookup().defineHiddenClass(classBytes, true);
+            return (Kernel) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot define specialized kernel", e);
+        }
+    }
+
+    // ================== CLASS FILE GENERATION ==================
+
+    static byte[] generate(String pattern) {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(nextClassName());
+        int superClass = pool.classRef("java/lang/Object");
+        int kernel = pool.classRef(KERNEL_NAME);
+        int objectInit = pool.methodRef(superClass, "<init>", "()V");
+        int string = pool.classRef("java/lang/String");
+        int charAt = pool.methodRef(string, "charAt", "(I)C");
+        int accept = pool.interfaceMethodRef(pool.classRef("MatchSink"), "accept", "(I)V");
+        int code = pool.utf8("Code");
+
+        List<byte[]> methods = new ArrayList<>();
+        methods.add(method(pool, 0x0001, "<init>", "()V", code, 1, 1, constructorCode(objectInit)));
+        methods.add(method(pool, 0x0001, "search", "(Ljava/lang/String;IILMatchSink;)V", code, 4, 8,
+                searchCode(pattern, charAt, accept, pool)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);           // minor version
+            out.writeShort(49);          // major version (Java 5, no stack maps)
+            pool.writeTo(out);
+            out.writeShort(0x0010 | 0x0020); // ACC_FINAL | ACC_SUPER
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(kernel);
+            out.writeShort(0);           // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);           // attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static synchronized String nextClassName() {
+        return "SpecializedKernel" + (classCounter++);
+    }
+
+    private static byte[] constructorCode(int objectInit) {
+        Code code = new Code();
+        code.op(0x2A);                   // aload_0
+        code.op(0xB7).u2(objectInit);    // invokespecial Object.<init>
+        code.op(0xB1);                   // return
+        return code.toByteArray();
+    }
+
+    // Locals: 0 this, 1 text, 2 from, 3 to, 4 matches, 5 last window start (to - m),
+    // 6 window start i, 7 char under the window's last position
+    private static byte[] searchCode(String pattern, int charAt, int accept, ConstantPool pool) {
+        int m = pattern.length();
+        Code code = new Code();
+        code.op(0x1D);                   // iload_3 (to)
+        code.pushInt(m, pool);
+        code.op(0x64);                   // isub
+        code.op(0x36).op(5);             // istore 5 (last)
+        code.op(0x1C);                   // iload_2 (from)
+        code.op(0x36).op(6);             // istore 6 (i)
+
+        // LOOP: while (i <= last)
+        int loop = code.size();
+        code.op(0x15).op(6);             // iload 6
+        code.op(0x15).op(5);             // iload 5
+        int exitJump = code.size();
+        code.op(0xA3).u2(0);             // if_icmpgt END (patched below)
+
+        // c = text.charAt(i + m - 1)
+        code.op(0x2B);                   // aload_1
+        code.op(0x15).op(6);             // iload 6
+        code.pushInt(m - 1, pool);
+        code.op(0x60);                   // iadd
+        code.op(0xB6).u2(charAt);        // invokevirtual String.charAt
+        code.op(0x36).op(7);             // istore 7 (c)
+
+        // Compare right to left, one constant per char, jump to SHIFT on the first mismatch
+        List<Integer> mismatchJumps = new ArrayList<>();
+        code.op(0x15).op(7);             // iload 7
+        code.pushInt(pattern.charAt(m - 1), pool);
+        mismatchJumps.add(code.size());
+        code.op(0xA0).u2(0);             // if_icmpne SHIFT
+        for (int j = m - 2; j >= 0; j--) {
+            code.op(0x2B);               // aload_1
+            code.op(0x15).op(6);         // iload 6
+            code.pushInt(j, pool);
+            code.op(0x60);               // iadd
+            code.op(0xB6).u2(charAt);    // invokevirtual String.charAt
+            code.pushInt(pattern.charAt(j), pool);
+            mismatchJumps.add(code.size());
+            code.op(0xA0).u2(0);         // if_icmpne SHIFT
+        }
+        code.op(0x19).op(4);             // aload 4 (matches)
+        code.op(0x15).op(6);             // iload 6
+        code.op(0xB9).u2(accept).op(2).op(0); // invokeinterface MatchSink.accept
+
+        // SHIFT: i += switch (c) { case k: shift(k); default: m }
+        int shift = code.size();
+        for (int at : mismatchJumps) {
+            code.patchU2(at + 1, shift - at);
+        }
+        code.op(0x15).op(6);             // iload 6
+        code.op(0x15).op(7);             // iload 7
+        List<Integer> addJumps = new ArrayList<>();
+        lookupSwitch(code, horspoolShifts(pattern), m, addJumps, pool);
+        int add = code.size();
+        for (int at : addJumps) {
+            code.patchU2(at + 1, add - at);
+        }
+        code.op(0x60);                   // iadd
+        code.op(0x36).op(6);             // istore 6
+        int back = code.size();
+        code.op(0xA7).u2(loop - back);   // goto LOOP
+
+        // END
+        code.patchU2(exitJump + 1, code.size() - exitJump);
+        code.op(0xB1);                   // return
+        return code.toByteArray();
+    }
+
+    // lookupswitch on the int on top of the stack; every case (and the default) pushes its
+    // constant shift and jumps to a common continuation, whose goto offsets are collected
+    private static void lookupSwitch(Code code, Map<Character, Integer> shifts, int defaultShift,
+                                     List<Integer> continuationJumps, ConstantPool pool) {
+        TreeMap<Integer, Integer> sorted = new TreeMap<>();
+        for (Map.Entry<Character, Integer> entry : shifts.entrySet()) {
+            sorted.put((int) entry.getKey(), entry.getValue());
+        }
+
+        int switchAt = code.size();
+        code.op(0xAB);                   // lookupswitch
+        while (code.size() % 4 != 0) {
+            code.op(0);                  // pad to a 4-byte boundary
+        }
+        int defaultSlot = code.size();
+        code.u4(0);
+        code.u4(sorted.size());
+        List<Integer> caseSlots = new ArrayList<>();
+        for (int key : sorted.keySet()) {
+            code.u4(key);
+            caseSlots.add(code.size());
+            code.u4(0);
+        }
+
+        int k = 0;
+        for (int shift : sorted.values()) {
+            code.patchU4(caseSlots.get(k++), code.size() - switchAt);
+            code.pushInt(shift, pool);
+            continuationJumps.add(code.size());
+            code.op(0xA7).u2(0);         // goto continuation
+        }
+        code.patchU4(defaultSlot, code.size() - switchAt);
+        code.pushInt(defaultShift, pool);
+        continuationJumps.add(code.size());
+        code.op(0xA7).u2(0);             // goto continuation
+    }
+
+    private static byte[] method(ConstantPool pool, int access, String name, String descriptor,
+                                 int codeAttribute, int maxStack, int maxLocals, byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(access);
+            out.writeShort(pool.utf8(name));
+            out.writeShort(pool.utf8(descriptor));
+            out.writeShort(1);           // one attribute: Code
+            out.writeShort(codeAttribute);
+            out.writeInt(2 + 2 + 4 + body.length + 2 + 2);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(body.length);
+            out.write(body);
+            out.writeShort(0);           // exception table
+            out.writeShort(0);           // code attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Constant pool with de-duplicated entries
+     */
+    private static class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) {
+            return entry("U" + value, () -> {
+                out.writeByte(1);
+                out.writeUTF(value);
+            });
+        }
+
+        int integer(int value) {
+            return entry("I" + value, () -> {
+                out.writeByte(3);
+                out.writeInt(value);
+            });
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return entry("C" + internalName, () -> {
+                out.writeByte(7);
+                out.writeShort(name);
+            });
+        }
+
+        int methodRef(int owner, String name, String descriptor) {
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = entry("N" + name + descriptor, () -> {
+                out.writeByte(12);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            return entry("M" + owner + "." + name + descriptor, () -> {
+                out.writeByte(10);
+                out.writeShort(owner);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        int interfaceMethodRef(int owner, String name, String descriptor) {
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = entry("N" + name + descriptor, () -> {
+                out.writeByte(12);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            return entry("IM" + owner + "." + name + descriptor, () -> {
+                out.writeByte(11);
+                out.writeShort(owner);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        private int entry(String key, Writer writer) {
+            Integer index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+            try {
+                writer.write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entries.put(key, count);
+            return count++;
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            target.writeShort(count);
+            bytes.writeTo(target);
+        }
+
+        private interface Writer {
+            void write() throws IOException;
+        }
+    }
+
+    /**
+     * Growable bytecode buffer
+     */
+    private static class Code {
+        private byte[] buffer = new byte[256];
+        private int size;
+
+        Code op(int opcode) {
+            ensure(1);
+            buffer[size++] = (byte) opcode;
+            return this;
+        }
+
+        Code u2(int value) {
+            op(value >> 8);
+            return op(value);
+        }
+
+        Code u4(int value) {
+            u2(value >>> 16);
+            return u2(value);
+        }
+
+        void patchU2(int at, int value) {
+            buffer[at] = (byte) (value >> 8);
+            buffer[at + 1] = (byte) value;
+        }
+
+        void patchU4(int at, int value) {
+            patchU2(at, value >>> 16);
+            patchU2(at + 2, value);
+        }
+
+        // Shortest instruction that pushes an int constant
+        void pushInt(int value, ConstantPool pool) {
+            if (value >= -1 && value <= 5) {
+                op(0x03 + value);        // iconst_<n>
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                op(0x10).op(value);      // bipush
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                op(0x11).u2(value);      // sipush
+            } else {
+                op(0x13).u2(pool.integer(value)); // ldc_w
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return java.util.Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = java.util.Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+    }
+}
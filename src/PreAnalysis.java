@@ -1,3 +1,10 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * PreAnalysis interface for students to implement their algorithm selection logic
  * 
@@ -14,7 +21,7 @@ public abstract class PreAnalysis {
      * 
      * @param text The text to search in
      * @param pattern The pattern to search for
-     * @return The name of the algorithm to use (e.g., "Naive", "KMP", "RabinKarp", "BoyerMoore", "GoCrazy")
+     * @return The name of the algorithm to use (e.g., "Naive", "KMP", "RabinKarp", "BoyerMoore", "GoCrazy", "IndexOf")
      *         Return null if you want to skip pre-analysis and run all algorithms
      * 
      * Tips for students:
@@ -49,17 +56,17 @@ class StudentPreAnalysis extends PreAnalysis {
         int n = text.length();
         int m = pattern.length();
 
-        // 1. If text is very short, just use Naive.
-        if (n < MIN_TEXT_NAIVE) {
-            return "Naive";
+        // 1. Patterns of 1-4 chars have dedicated kernels, whatever the text size.
+        if (m >= 1 && m <= ShortPattern.MAX_LENGTH) {
+            return "ShortPattern";
         }
 
-        // 2. Empty or single char patterns -> Naive.
-        if (m <= 1) {
-            return "Naive";
+        // 2. If text is very short, the JDK's intrinsic indexOf has no setup cost to pay back.
+        if (n < MIN_TEXT_NAIVE) {
+            return "IndexOf";
         }
 
-        // 3. For short patterns (2-5 chars), Naive is fast enough.
+        // 3. Empty or 5 char patterns -> Naive is fast enough.
         if (m <= 5) {
             return "Naive";
         }
@@ -120,14 +127,14 @@ class StudentPreAnalysis extends PreAnalysis {
             }
         }
 
-        // 9. Default to Naive for everything else.
-        return "Naive";
+        // 9. Default to the JDK's indexOf for everything else.
+        return "IndexOf";
     }
 
     /**
      * Helper to check unique chars and repetition.
      */
-    private PatternAnalysis analyzePattern(String pattern) {
+    static PatternAnalysis analyzePattern(String pattern) {
         PatternAnalysis result = new PatternAnalysis();
         int m = pattern.length();
 
@@ -162,20 +169,154 @@ class StudentPreAnalysis extends PreAnalysis {
         return result;
     }
 
-    private static class PatternAnalysis {
+    /**
+     * Same analysis, plus the two rarest pattern positions under a frequency model
+     * (used by RareAnchor to decide which characters to scan for).
+     */
+    static PatternAnalysis analyzePattern(String pattern, CharFrequency model) {
+        PatternAnalysis result = analyzePattern(pattern);
+
+        double rarest = Double.MAX_VALUE;
+        double second = Double.MAX_VALUE;
+        for (int i = 0; i < pattern.length(); i++) {
+            double w = model.weight(pattern.charAt(i));
+            if (w < rarest) {
+                second = rarest;
+                result.secondRareIndex = result.rareIndex;
+                rarest = w;
+                result.rareIndex = i;
+            } else if (w < second) {
+                second = w;
+                result.secondRareIndex = i;
+            }
+        }
+
+        return result;
+    }
+
+    static class PatternAnalysis {
         int uniqueChars = 0;
         double repetitionRatio = 0.0;
         boolean isHighlyRepetitive = false;
+        int rareIndex = -1;         // only set by the CharFrequency overload
+        int secondRareIndex = -1;
     }
 
     @Override
     public String getStrategyDescription() {
-        return "Simple Strategy: Naive for small inputs. Boyer-Moore for large texts with distinct patterns. KMP for repetitive patterns.";
+        return "Simple Strategy: ShortPattern kernels for 1-4 char patterns. JDK indexOf for small inputs. Boyer-Moore for large texts with distinct patterns. KMP for repetitive patterns.";
     }
 }
 
 
 
+/**
+ * Table-driven pre-analysis that walks a decision tree fitted by ThresholdTuner.
+ *
+ * The tree is read from a rules file (default: tuning/preanalysis.rules), one node per line:
+ *   <id> split <feature> <threshold> <leftId> <rightId>   (go left when feature <= threshold)
+ *   <id> leaf <Algorithm>
+ * Features are n (text length), m (pattern length), unique (distinct pattern chars)
+ * and repetition (StudentPreAnalysis repetition ratio). Node 0 is the root.
+ * If the rules file cannot be read, StudentPreAnalysis is used instead.
+ */
+class TableDrivenPreAnalysis extends PreAnalysis {
+
+    static final String DEFAULT_RULES_FILE = "tuning/preanalysis.rules";
+
+    private final Map<Integer, Node> nodes = new HashMap<>();
+    private final PreAnalysis fallback = new StudentPreAnalysis();
+    private String source;
+
+    public TableDrivenPreAnalysis() {
+        this(DEFAULT_RULES_FILE);
+    }
+
+    public TableDrivenPreAnalysis(String rulesFile) {
+        // Try multiple possible paths (for running from different directories)
+        Path path = Paths.get(rulesFile);
+        if (!Files.exists(path)) {
+            path = Paths.get("..", rulesFile);
+        }
+        try {
+            for (String line : Files.readAllLines(path)) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                Node node = new Node();
+                if (parts[1].equals("split")) {
+                    node.feature = parts[2];
+                    node.threshold = Double.parseDouble(parts[3]);
+                    node.left = Integer.parseInt(parts[4]);
+                    node.right = Integer.parseInt(parts[5]);
+                } else {
+                    node.algorithm = parts[2];
+                }
+                nodes.put(Integer.parseInt(parts[0]), node);
+            }
+            source = path.toString();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: could not load rules from " + rulesFile + " (" + e.getMessage()
+                    + "), falling back to StudentPreAnalysis");
+            nodes.clear();
+        }
+    }
+
+    @Override
+    public String chooseAlgorithm(String text, String pattern) {
+        if (text == null || pattern == null) return "Naive";
+        if (nodes.isEmpty()) {
+            return fallback.chooseAlgorithm(text, pattern);
+        }
+
+        // Pattern analysis is O(m), so only compute it if the path needs it
+        StudentPreAnalysis.PatternAnalysis analysis = null;
+        Node node = nodes.get(0);
+
+        while (node != null && node.algorithm == null) {
+            double value;
+            switch (node.feature) {
+                case "n":
+                    value = text.length();
+                    break;
+                case "m":
+                    value = pattern.length();
+                    break;
+                default:
+                    if (analysis == null) {
+                        analysis = pattern.isEmpty()
+                                ? new StudentPreAnalysis.PatternAnalysis()
+                                : StudentPreAnalysis.analyzePattern(pattern);
+                    }
+                    value = node.feature.equals("unique") ? analysis.uniqueChars : analysis.repetitionRatio;
+                    break;
+            }
+            node = nodes.get(value <= node.threshold ? node.left : node.right);
+        }
+
+        return node != null ? node.algorithm : fallback.chooseAlgorithm(text, pattern);
+    }
+
+    private static class Node {
+        String feature;      // null for leaves
+        double threshold;
+        int left;
+        int right;
+        String algorithm;    // non-null for leaves
+    }
+
+    @Override
+    public String getStrategyDescription() {
+        if (nodes.isEmpty()) {
+            return "Tuned strategy (rules missing, using StudentPreAnalysis): " + fallback.getStrategyDescription();
+        }
+        return "Tuned strategy: decision tree with " + nodes.size() + " nodes from " + source;
+    }
+}
+
+
 /**
  * Example implementation showing how pre-analysis could work
  * This is for demonstration purposes
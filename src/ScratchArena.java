@@ -0,0 +1,93 @@
+/**
+ * Per-thread reusable working arrays for pattern preprocessing (lps, suffix and prefix tables,
+ * bad-character tables, KMP's automaton) and for blocks of text copied out for scanning.
+ *
+ * Each thread keeps one int[], one boolean[] and one char[] per slot, grown to the next power of two, so a
+ * steady-state Solve on a long-lived thread reuses the same tables instead of allocating them
+ * for every call (only a few small fixed-size objects are still created per call). An algorithm
+ * that needs two tables of the same type at once uses two different slots.
+ *
+ * The reuse comes from the thread living on: a virtual thread per task, or any other short-lived
+ * thread, starts with an empty arena and allocates every table again. Code that searches for
+ * the same pattern from such threads should share one Solution.Prepared instead.
+ *
+ * Rules for callers:
+ *   - Contents are unspecified and arrays may be longer than requested: initialize [0, length).
+ *   - A buffer is only valid until the same slot is requested again on the same thread, so it
+ *     must not escape the call (Prepared tables are allocated normally) and must not be held
+ *     across a call into another algorithm. A sink that receives matches during a search must
+ *     not start another search on the same thread.
+ */
+final class ScratchArena {
+
+    static final int SLOTS = 4;
+
+    // Larger requests get a fresh array that is not kept, so one huge pattern cannot pin memory
+    private static final int MAX_RETAINED_LENGTH = 1 << 20;
+
+    private static final ThreadLocal<ScratchArena> CURRENT = ThreadLocal.withInitial(ScratchArena::new);
+
+    private final int[][] ints = new int[SLOTS][];
+    private final boolean[][] booleans = new boolean[SLOTS][];
+    private final char[][] chars = new char[SLOTS][];
+
+    private ScratchArena() {
+    }
+
+    static ScratchArena get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * An int[] of at least minLength elements for the given slot
+     */
+    int[] ints(int slot, int minLength) {
+        int[] buffer = ints[slot];
+        if (buffer != null && buffer.length >= minLength) {
+            return buffer;
+        }
+        if (minLength > MAX_RETAINED_LENGTH) {
+            return new int[minLength];
+        }
+        buffer = new int[sizeClass(minLength)];
+        ints[slot] = buffer;
+        return buffer;
+    }
+
+    /**
+     * A boolean[] of at least minLength elements for the given slot
+     */
+    boolean[] booleans(int slot, int minLength) {
+        boolean[] buffer = booleans[slot];
+        if (buffer != null && buffer.length >= minLength) {
+            return buffer;
+        }
+        if (minLength > MAX_RETAINED_LENGTH) {
+            return new boolean[minLength];
+        }
+        buffer = new boolean[sizeClass(minLength)];
+        booleans[slot] = buffer;
+        return buffer;
+    }
+
+    /**
+     * A char[] of at least minLength elements for the given slot
+     */
+    char[] chars(int slot, int minLength) {
+        char[] buffer = chars[slot];
+        if (buffer != null && buffer.length >= minLength) {
+            return buffer;
+        }
+        if (minLength > MAX_RETAINED_LENGTH) {
+            return new char[minLength];
+        }
+        buffer = new char[sizeClass(minLength)];
+        chars[slot] = buffer;
+        return buffer;
+    }
+
+    // Next power of two, at least 64
+    private static int sizeClass(int length) {
+        return Math.max(64, Integer.highestOneBit(Math.max(1, length - 1)) << 1);
+    }
+}
@@ -0,0 +1,132 @@
+import java.time.Duration;
+
+/**
+ * Limits for one search: a deadline, a maximum number of text positions to try, or both, plus
+ * a flag another thread can set to cancel the search.
+ *
+ * Solution.SolveWithin searches the text in chunks and charges the budget once per chunk, so
+ * the per-char loops of the algorithms are untouched and a check costs one System.nanoTime()
+ * per chunk. The pattern is prepared once per search and each chunk is a range of the original
+ * text (Prepared.SolveInto(text, from, to, sink)), so chunking copies nothing and repeats no
+ * preprocessing. A chunk's range does include the m - 1 chars that the next chunk starts with,
+ * and the left-to-right scans (KMP, RabinKarp) read them again there.
+ *
+ * Chunks are sized so that even a quadratic worst case (Naive on "aaa...ab") does about
+ * WORK_PER_CHECK char comparisons between two checks, but never smaller than OVERLAP_FACTOR * m
+ * positions, so the re-read overlap costs at most 1/OVERLAP_FACTOR of a linear scan. Up to
+ * m = sqrt(WORK_PER_CHECK / OVERLAP_FACTOR), about 700, the first rule decides; for longer
+ * patterns checks are further apart (up to OVERLAP_FACTOR * m * m comparisons in the quadratic
+ * worst case). When the budget runs out the search
+ * either stops and reports where to resume, or finishes the rest of the text with KMP, whose
+ * time is linear whatever the input (like GoCrazy's fallback).
+ *
+ * A budget is used by one search at a time; only cancel() may be called from other threads.
+ */
+public final class SearchBudget {
+
+    /**
+     * What SolveWithin does once the budget is exhausted
+     */
+    public enum OnExhausted {
+        STOP,               // return the matches found so far and the position to resume at
+        SWITCH_TO_LINEAR    // search the rest of the text with KMP, ignoring the budget
+    }
+
+    static final long WORK_PER_CHECK = 1 << 22;
+    static final int MIN_CHUNK = 1 << 10;
+    static final int OVERLAP_FACTOR = 8;
+
+    private final long deadline;        // System.nanoTime() value, only meaningful if hasDeadline
+    private final boolean hasDeadline;
+    private final long maxPositions;
+    private final OnExhausted onExhausted;
+    private long positions;
+    private volatile boolean cancelled;
+
+    private SearchBudget(long deadline, boolean hasDeadline, long maxPositions, OnExhausted onExhausted) {
+        this.deadline = deadline;
+        this.hasDeadline = hasDeadline;
+        this.maxPositions = maxPositions;
+        this.onExhausted = onExhausted;
+    }
+
+    /**
+     * No limit; the search can still be cancelled
+     */
+    public static SearchBudget unlimited() {
+        return new SearchBudget(0, false, Long.MAX_VALUE, OnExhausted.STOP);
+    }
+
+    /**
+     * Stop once the given time has elapsed from now
+     */
+    public static SearchBudget within(Duration timeout) {
+        return new SearchBudget(System.nanoTime() + timeout.toNanos(), true, Long.MAX_VALUE, OnExhausted.STOP);
+    }
+
+    /**
+     * Stop after trying this many text positions (candidate match starts)
+     */
+    public static SearchBudget ofPositions(long maxPositions) {
+        return new SearchBudget(0, false, maxPositions, OnExhausted.STOP);
+    }
+
+    /**
+     * This budget with a position limit added
+     */
+    public SearchBudget withMaxPositions(long maxPositions) {
+        return new SearchBudget(deadline, hasDeadline, maxPositions, onExhausted);
+    }
+
+    /**
+     * This budget, finishing with a linear-time search instead of stopping when it runs out
+     */
+    public SearchBudget orSwitchToLinear() {
+        return new SearchBudget(deadline, hasDeadline, maxPositions, OnExhausted.SWITCH_TO_LINEAR);
+    }
+
+    /**
+     * Ask the search to stop at its next check (safe to call from any thread)
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public OnExhausted getOnExhausted() {
+        return onExhausted;
+    }
+
+    /**
+     * Text positions tried so far
+     */
+    public long getPositions() {
+        return positions;
+    }
+
+    /**
+     * How many of the `wanted` next positions may be tried, 0 once the budget is exhausted
+     */
+    int grant(int wanted) {
+        if (cancelled || (hasDeadline && System.nanoTime() - deadline >= 0)) {
+            return 0;
+        }
+        return (int) Math.min(wanted, maxPositions - positions);
+    }
+
+    void charge(long count) {
+        positions += count;
+    }
+
+    /**
+     * Positions per chunk: a worst case of m comparisons per position stays near WORK_PER_CHECK,
+     * and the m - 1 chars shared with the next chunk stay a small part of a linear scan
+     */
+    static int chunkPositions(int m) {
+        long positions = Math.max(WORK_PER_CHECK / Math.max(1, m), (long) OVERLAP_FACTOR * m);
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_CHUNK, positions));
+    }
+}
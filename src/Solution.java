@@ -2,6 +2,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.function.BiConsumer;
 
 public abstract class Solution {
     static final Set<Class<? extends Solution>> SUBCLASSES = new HashSet<>();
@@ -18,6 +19,164 @@ public abstract class Solution {
      */
     public abstract String Solve(String text, String pattern);
 
+    /**
+     * Preprocess the pattern once so it can be searched for in many texts
+     * Algorithms with per-pattern tables override this to build them only once;
+     * the default simply calls SolveInto for every text.
+     * @param pattern The pattern to search for
+     * @return A reusable searcher for this pattern (safe to share between threads)
+     */
+    public Prepared prepare(String pattern) {
+        return Prepared.ofSink((text, matches) -> SolveInto(text, pattern, matches));
+    }
+
+    /**
+     * Same matches as Solve, as arithmetic runs (see MatchRuns)
+     * Algorithms that detect periodic runs override this to avoid one entry per match;
+     * the default parses the Solve result.
+     */
+    public MatchRuns SolveRuns(String text, String pattern) {
+        return MatchRuns.parse(Solve(text, pattern));
+    }
+
+    /**
+     * Stream the matches to a sink instead of returning them
+     * Every algorithm here searches straight into the sink, so memory stays constant however
+     * many matches there are; the default (for a Solution that only implements Solve) goes
+     * through SolveRuns and parses the Solve result.
+     */
+    public void SolveInto(String text, String pattern, MatchSink sink) {
+        SolveRuns(text, pattern).sendTo(sink);
+    }
+
+    /**
+     * Search within a budget, starting at a given position (0, or a previous call's return value)
+     * The text is searched in chunks and the budget checked between them (see SearchBudget);
+     * matches go to the sink as they are found, so they are kept when the budget runs out.
+     * @param from First text position to try
+     * @return Position to resume at with a new budget, or -1 if the whole text was searched
+     */
+    public int SolveWithin(String text, String pattern, int from, SearchBudget budget, MatchSink sink) {
+        return SolveWithin(prepare(pattern), text, pattern, from, budget, sink);
+    }
+
+    /**
+     * Same, with the pattern already prepared by this algorithm, so a caller that resumes one
+     * search many times (MatchPublisher) prepares it once
+     */
+    public int SolveWithin(Prepared prepared, String text, String pattern, int from, SearchBudget budget,
+                           MatchSink sink) {
+        int n = text.length();
+        int m = pattern.length();
+        int end = n - m + 1;            // one past the last position a match can start at
+        int chunk = SearchBudget.chunkPositions(m);
+
+        int position = Math.max(0, from);
+        while (position < end) {
+            int positions = budget.grant(Math.min(chunk, end - position));
+            if (positions <= 0) {
+                if (budget.getOnExhausted() == SearchBudget.OnExhausted.STOP) {
+                    return position;
+                }
+                // Linear time for whatever is left, however adversarial the text
+                new KMP().prepare(pattern).SolveInto(text, position, n, sink);
+                return -1;
+            }
+            // The matches that start in [position, limit) are those that lie in [position, limit + m - 1)
+            int limit = position + positions;
+            prepared.SolveInto(text, position, limit + m - 1, sink);
+            budget.charge(positions);
+            position = limit;
+        }
+        return -1;
+    }
+
+    /**
+     * A pattern whose preprocessing is already done
+     */
+    public interface Prepared {
+        /**
+         * @param text The text to search in
+         * @return Comma-separated string of indices, same format as Solution.Solve
+         */
+        String Solve(String text);
+
+        /**
+         * @param text The text to search in
+         * @return The matches as arithmetic runs, same positions as Solve
+         */
+        default MatchRuns SolveRuns(String text) {
+            return MatchRuns.parse(Solve(text));
+        }
+
+        /**
+         * @param text The text to search in
+         * @param sink Receives the matches, same positions as Solve
+         */
+        default void SolveInto(String text, MatchSink sink) {
+            SolveRuns(text).sendTo(sink);
+        }
+
+        /**
+         * Search text[from, to) as if it were the whole text: the matches that lie entirely
+         * inside it, reported as offsets in text
+         * The algorithms here search the range in place; the default searches a copy of it.
+         */
+        default void SolveInto(String text, int from, int to, MatchSink sink) {
+            SolveInto(text.substring(from, to), MatchSink.shifted(sink, from));
+        }
+
+        /**
+         * A Prepared whose search writes into a sink; Solve and SolveRuns collect into MatchRuns
+         */
+        static Prepared ofSink(BiConsumer<String, MatchSink> search) {
+            return ofRange((text, from, to, sink) -> {
+                if (from == 0 && to == text.length()) {
+                    search.accept(text, sink);
+                } else {
+                    search.accept(text.substring(from, to), MatchSink.shifted(sink, from));
+                }
+            });
+        }
+
+        /**
+         * A Prepared whose search takes a range of the text (see SolveInto(text, from, to, sink))
+         */
+        static Prepared ofRange(RangeSearch search) {
+            return new Prepared() {
+                @Override
+                public String Solve(String text) {
+                    return SolveRuns(text).toString();
+                }
+
+                @Override
+                public MatchRuns SolveRuns(String text) {
+                    MatchRuns matches = new MatchRuns();
+                    search.search(text, 0, text.length(), matches);
+                    return matches;
+                }
+
+                @Override
+                public void SolveInto(String text, MatchSink sink) {
+                    search.search(text, 0, text.length(), sink);
+                }
+
+                @Override
+                public void SolveInto(String text, int from, int to, MatchSink sink) {
+                    search.search(text, from, to, sink);
+                }
+            };
+        }
+    }
+
+    /**
+     * A search over text[from, to), reporting offsets in text
+     */
+    @FunctionalInterface
+    public interface RangeSearch {
+        void search(String text, int from, int to, MatchSink matches);
+    }
+
     /**
      * Helper method to convert list of indices to comma-separated string
      * @param indices List of indices where pattern was found
@@ -56,6 +215,62 @@ public abstract class Solution {
         return true;
     }
 
+    /**
+     * text.indexOf(c, from), or -1 when c does not occur before `to`
+     * String.indexOf (a SIMD intrinsic) has no end bound before Java 21, so it is only used when
+     * what it may read past `to` is no longer than the range itself; a chunked search then stays
+     * linear. Otherwise the range is scanned char by char.
+     */
+    protected static int indexOf(String text, char c, int from, int to) {
+        if (text.length() - to <= to - from) {
+            int i = text.indexOf(c, from);
+            return i < to ? i : -1;
+        }
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper for algorithms that just found a match: while the text keeps repeating with the
+     * pattern's smallest period, every period chars is another match (and there are none in
+     * between), so the whole stretch is added as one run without re-reading the pattern
+     * @param start Position of the match just found
+     * @param m Pattern length
+     * @param period Smallest period of the pattern (m - lps[m - 1])
+     * @param n End of the text being searched (text.length(), or the end of a range)
+     * @return Position of the last match added
+     */
+    protected static int addPeriodicRun(String text, int start, int m, int period, int n, MatchSink matches) {
+        int k = start + m;
+        while (k < n && text.charAt(k) == text.charAt(k - period)) {
+            k++;
+        }
+        int more = (k - start - m) / period;
+        matches.acceptRun(start, period, 1 + more);
+        return start + more * period;
+    }
+
+    /**
+     * A new instance of the registered algorithm (see SUBCLASSES) with this simple name
+     * @throws IllegalArgumentException if no registered algorithm has that name
+     */
+    static Solution byName(String name) {
+        for (Class<? extends Solution> algorithmClass : SUBCLASSES) {
+            if (algorithmClass.getSimpleName().equals(name)) {
+                try {
+                    return algorithmClass.getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot create algorithm " + name, e);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Algorithm not found: " + name);
+    }
+
     /**
      * Get the name of this algorithm
      * @return The class name (algorithm name)
@@ -1,3 +1,5 @@
+import java.util.function.Supplier;
+
 /**
  * Represents a test case for string matching algorithms.
  * Test cases are now loaded from JSON files in the testcases/ directory.
@@ -5,9 +7,11 @@
  */
 public class TestCase {
     private String name;
-    private String text;
+    private volatile String text;
+    private Supplier<String> textLoader; // set when the text lives in a separate file
     private String pattern;
-    private String expectedResult;
+    private volatile String expectedResult;
+    private Supplier<String> expectedLoader; // set when the expected result is decoded on demand
     
     public TestCase(String name, String text, String pattern, String expectedResult) {
         this.name = name;
@@ -16,12 +20,42 @@ public class TestCase {
         this.expectedResult = expectedResult;
     }
     
+    /**
+     * Test case whose text is loaded on the first call to getText()
+     */
+    public TestCase(String name, Supplier<String> textLoader, String pattern, String expectedResult) {
+        this.name = name;
+        this.textLoader = textLoader;
+        this.pattern = pattern;
+        this.expectedResult = expectedResult;
+    }
+    
+    /**
+     * Test case whose text and expected result are both loaded on first use
+     */
+    public TestCase(String name, Supplier<String> textLoader, String pattern, Supplier<String> expectedLoader) {
+        this.name = name;
+        this.textLoader = textLoader;
+        this.pattern = pattern;
+        this.expectedLoader = expectedLoader;
+    }
+    
     public String getName() {
         return name;
     }
     
     public String getText() {
-        return text;
+        String result = text;
+        if (result == null) {
+            synchronized (this) {
+                if (text == null) {
+                    text = textLoader.get();
+                    textLoader = null;
+                }
+                result = text;
+            }
+        }
+        return result;
     }
     
     public String getPattern() {
@@ -29,15 +63,28 @@ public class TestCase {
     }
     
     public String getExpectedResult() {
-        return expectedResult;
+        String result = expectedResult;
+        if (result == null) {
+            synchronized (this) {
+                if (expectedResult == null) {
+                    expectedResult = expectedLoader.get();
+                    expectedLoader = null;
+                }
+                result = expectedResult;
+            }
+        }
+        return result;
     }
     
 
     
+    /**
+     * Never loads a lazy text, so logging a case keeps it unloaded
+     */
     @Override
     public String toString() {
-        return String.format("TestCase{name='%s', textLen=%d, patternLen=%d}", 
-                           name, text.length(), pattern.length());
+        String loaded = text;
+        return String.format("TestCase{name='%s', textLen=%s, patternLen=%d}",
+                           name, loaded != null ? String.valueOf(loaded.length()) : "not loaded", pattern.length());
     }
 }
-
@@ -1,5 +1,7 @@
-import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,6 +19,8 @@ public class TestCaseLoader {
     private static final String TESTCASES_DIR = "testcases";
     private static final String SHARED_DIR = "shared";
     private static final String HIDDEN_DIR = "hidden";
+    private static final String GENERATED_DIR = "generated";
+    private static final int PARALLEL_THRESHOLD = 64; // files per directory before parsing in parallel
     
     /**
      * Load all test cases from both shared and hidden directories
@@ -42,6 +46,13 @@ public class TestCaseLoader {
         return loadTestCasesFromDirectory(HIDDEN_DIR);
     }
     
+    /**
+     * Load test cases written by WorkloadGenerator (for benchmarking at realistic sizes)
+     */
+    public static List<TestCase> loadGeneratedTestCases() {
+        return loadTestCasesFromDirectory(GENERATED_DIR);
+    }
+    
     /**
      * Load test cases from a specific directory
      */
@@ -62,20 +73,20 @@ public class TestCaseLoader {
         }
         
         try (Stream<Path> paths = Files.walk(dirPath, 1)) {
-            List<Path> jsonFiles = paths
+            List<Path> caseFiles = paths
                 .filter(Files::isRegularFile)
-                .filter(p -> p.toString().endsWith(".json"))
+                .filter(p -> p.toString().endsWith(".json") || p.toString().endsWith(BinaryCorpus.EXTENSION))
                 .sorted()
                 .collect(Collectors.toList());
             
-            for (Path jsonFile : jsonFiles) {
-                try {
-                    TestCase testCase = loadTestCaseFromFile(jsonFile);
-                    testCases.add(testCase);
-                } catch (Exception e) {
-                    System.err.println("Error loading test case from " + jsonFile + ": " + e.getMessage());
-                }
-            }
+            // Large corpora are parsed in parallel; the ordered stream keeps the sorted order
+            Stream<Path> fileStream = caseFiles.size() >= PARALLEL_THRESHOLD
+                ? caseFiles.parallelStream()
+                : caseFiles.stream();
+            testCases.addAll(fileStream
+                .map(TestCaseLoader::loadOrReport)
+                .flatMap(List::stream)
+                .collect(Collectors.toList()));
         } catch (IOException e) {
             System.err.println("Error reading directory " + dirPath + ": " + e.getMessage());
         }
@@ -83,81 +94,275 @@ public class TestCaseLoader {
         return testCases;
     }
     
+    private static List<TestCase> loadOrReport(Path file) {
+        try {
+            if (file.toString().endsWith(BinaryCorpus.EXTENSION)) {
+                // Only the index is read here, texts are mapped when first used
+                return BinaryCorpus.read(file);
+            }
+            return Collections.singletonList(loadTestCaseFromFile(file));
+        } catch (Exception e) {
+            System.err.println("Error loading test case from " + file + ": " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+    
     /**
      * Load a single test case from a JSON file
      */
     public static TestCase loadTestCaseFromFile(Path filePath) throws IOException {
-        String content = Files.readString(filePath);
-        return parseJsonTestCase(content, filePath.getFileName().toString());
+        try (Reader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+            return parseJsonTestCase(new JsonTokenizer(reader), filePath, Files.size(filePath));
+        }
     }
     
     /**
-     * Parse JSON content into a TestCase object
-     * Simple JSON parser without external dependencies
+     * Parse a JSON object into a TestCase object
+     * Streaming parser without external dependencies: each value is copied once from the
+     * reader into its own buffer, and all JSON string escapes (including unicode escapes)
+     * are decoded on the way.
+     * A "textFile" field may replace "text"; it names a file next to the JSON file that is
+     * only read the first time the text is needed.
      */
-    private static TestCase parseJsonTestCase(String json, String filename) {
-        // Remove whitespace and braces
-        json = json.trim();
-        if (json.startsWith("{")) {
-            json = json.substring(1);
-        }
-        if (json.endsWith("}")) {
-            json = json.substring(0, json.length() - 1);
-        }
-        
+    private static TestCase parseJsonTestCase(JsonTokenizer json, Path filePath, long fileSize) throws IOException {
+        String filename = filePath.getFileName().toString();
         String name = null;
         String text = null;
+        String textFile = null;
         String pattern = null;
         String expected = null;
         
-        // Split by lines and parse each field
-        String[] lines = json.split("\n");
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty() || line.equals(",")) {
-                continue;
-            }
-            
-            // Remove trailing comma
-            if (line.endsWith(",")) {
-                line = line.substring(0, line.length() - 1);
-            }
-            
-            if (line.contains(":")) {
-                String[] parts = line.split(":", 2);
-                String key = parts[0].trim().replace("\"", "");
-                String value = parts[1].trim();
-                
-                // Remove quotes from value
-                if (value.startsWith("\"") && value.endsWith("\"")) {
-                    value = value.substring(1, value.length() - 1);
-                }
+        json.expect('{');
+        if (json.peek() == '}') {
+            json.next();
+        } else {
+            do {
+                String key = json.readString(16);
+                json.expect(':');
                 
                 switch (key) {
                     case "name":
-                        name = value;
+                        name = json.readString(64);
                         break;
                     case "text":
-                        text = value;
+                        // The text is normally most of the file, so size its buffer once
+                        text = json.readString((int) Math.min(fileSize, Integer.MAX_VALUE - 8));
+                        break;
+                    case "textFile":
+                        textFile = json.readString(64);
                         break;
                     case "pattern":
-                        pattern = value;
+                        pattern = json.readString(64);
                         break;
                     case "expected":
-                        expected = value;
+                        expected = json.peek() == '[' ? json.readIntArray() : json.readString(64);
+                        break;
+                    default:
+                        json.skipValue();
                         break;
                 }
-            }
+            } while (json.nextSeparator('}'));
         }
         
-        if (name == null || text == null || pattern == null || expected == null) {
+        if (name == null || (text == null && textFile == null) || pattern == null || expected == null) {
             throw new IllegalArgumentException("Invalid JSON format in " + filename + 
-                ". Required fields: name, text, pattern, expected");
+                ". Required fields: name, text (or textFile), pattern, expected");
+        }
+        
+        if (text == null) {
+            Path textPath = filePath.resolveSibling(textFile);
+            if (!Files.isRegularFile(textPath)) {
+                throw new IllegalArgumentException("Text file not found for " + filename + ": " + textPath);
+            }
+            return new TestCase(name, () -> readTextFile(textPath), pattern, expected);
         }
         
         return new TestCase(name, text, pattern, expected);
     }
     
+    private static String readTextFile(Path textPath) {
+        try {
+            return Files.readString(textPath, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading text file " + textPath, e);
+        }
+    }
+    
+    /**
+     * Minimal streaming JSON tokenizer over a Reader
+     */
+    private static class JsonTokenizer {
+        private final Reader reader;
+        private final char[] buffer = new char[1 << 16]; // own buffer, Reader.read() is synchronized per char
+        private int position;
+        private int limit;
+        private int peeked = -2; // -2 = nothing buffered
+        
+        JsonTokenizer(Reader reader) {
+            this.reader = reader;
+        }
+        
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+        
+        /** Next non-whitespace character without consuming it (-1 at end of input) */
+        int peek() throws IOException {
+            if (peeked == -2) {
+                int c;
+                do {
+                    c = read();
+                } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+                peeked = c;
+            }
+            return peeked;
+        }
+        
+        int next() throws IOException {
+            int c = peek();
+            peeked = -2;
+            return c;
+        }
+        
+        void expect(char expected) throws IOException {
+            int c = next();
+            if (c != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' but found " + describe(c));
+            }
+        }
+        
+        /** Consume ',' (returns true) or the closing character (returns false) */
+        boolean nextSeparator(char close) throws IOException {
+            int c = next();
+            if (c == ',') {
+                return true;
+            }
+            if (c == close) {
+                return false;
+            }
+            throw new IllegalArgumentException("Expected ',' or '" + close + "' but found " + describe(c));
+        }
+        
+        String readString(int sizeHint) throws IOException {
+            expect('"');
+            StringBuilder sb = new StringBuilder(Math.max(16, sizeHint));
+            while (true) {
+                // Copy runs of plain characters straight from the buffer
+                int start = position;
+                while (position < limit && buffer[position] != '"' && buffer[position] != '\\') {
+                    position++;
+                }
+                sb.append(buffer, start, position - start);
+                
+                int c = read();
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated string");
+                }
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c == '\\') {
+                    int e = read();
+                    switch (e) {
+                        case '"': sb.append('"'); break;
+                        case '\\': sb.append('\\'); break;
+                        case '/': sb.append('/'); break;
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'n': sb.append('\n'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'u':
+                            int code = 0;
+                            for (int i = 0; i < 4; i++) {
+                                int digit = Character.digit(read(), 16);
+                                if (digit < 0) {
+                                    throw new IllegalArgumentException("Invalid \\u escape");
+                                }
+                                code = code * 16 + digit;
+                            }
+                            sb.append((char) code);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Invalid escape \\" + describe(e));
+                    }
+                } else {
+                    sb.append((char) c);
+                }
+            }
+        }
+        
+        /** Read an array of integers as a comma-separated string (the "expected" format) */
+        String readIntArray() throws IOException {
+            expect('[');
+            StringBuilder sb = new StringBuilder();
+            if (peek() == ']') {
+                next();
+                return "";
+            }
+            do {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(readLiteral());
+            } while (nextSeparator(']'));
+            return sb.toString();
+        }
+        
+        void skipValue() throws IOException {
+            int c = peek();
+            if (c == '"') {
+                readString(16);
+            } else if (c == '{' || c == '[') {
+                char close = c == '{' ? '}' : ']';
+                next();
+                if (peek() == close) {
+                    next();
+                    return;
+                }
+                do {
+                    if (close == '}') {
+                        readString(16);
+                        expect(':');
+                    }
+                    skipValue();
+                } while (nextSeparator(close));
+            } else {
+                readLiteral();
+            }
+        }
+        
+        /** Numbers, true, false, null */
+        private String readLiteral() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c = peek();
+            peeked = -2;
+            while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                sb.append((char) c);
+                c = read();
+            }
+            if (c != -1 && !Character.isWhitespace(c)) {
+                peeked = c;
+            }
+            if (sb.length() == 0) {
+                throw new IllegalArgumentException("Expected a value but found " + describe(c));
+            }
+            return sb.toString();
+        }
+        
+        private static String describe(int c) {
+            return c == -1 ? "end of input" : "'" + (char) c + "'";
+        }
+    }
+    
     /**
      * Get the number of shared test cases
      */
@@ -0,0 +1,321 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Offline trainer that fits the TableDrivenPreAnalysis decision tree from benchmark data.
+ *
+ * For every test case it collects the features used by the selector (n, m, unique, repetition)
+ * and the per-algorithm times from PreAnalysisComparison.runComparison, then greedily grows a
+ * small decision tree that minimizes the total time of the chosen algorithms. Splitting on a
+ * pattern feature (unique/repetition) is charged the measured analyzePattern time for every
+ * case below that split, so the tree only looks at the pattern when it pays for itself.
+ *
+ * Usage:
+ *   java ThresholdTuner                       - Tune on testcases/generated, write tuning/preanalysis.rules
+ *   java ThresholdTuner shared                - Tune on testcases/shared
+ *   java ThresholdTuner generated out.rules   - Write the rules to a different file
+ *
+ * Generate the corpus first with "java WorkloadGenerator --suite tuning" (the shared cases are
+ * too few and too small to fit thresholds on).
+ */
+public class ThresholdTuner {
+
+    private static final int MAX_DEPTH = 4;
+    private static final int MIN_LEAF_SIZE = 12;
+    private static final double MIN_GAIN_FRACTION = 0.01; // a split must save at least 1% of the node's time
+    private static final String[] FEATURES = {"n", "m", "unique", "repetition"};
+
+    /**
+     * Features and measured times for one test case
+     */
+    static class Record {
+        String name;
+        double[] features = new double[FEATURES.length];
+        long patternAnalysisNanos;
+        Map<String, Long> times = new HashMap<>();
+    }
+
+    /**
+     * A node of the fitted tree (leaf when algorithm != null)
+     */
+    static class TreeNode {
+        String algorithm;
+        int feature;
+        double threshold;
+        TreeNode left;
+        TreeNode right;
+        long cost;
+    }
+
+    public static void main(String[] args) {
+        String subDir = args.length > 0 ? args[0] : "generated";
+        String outFile = args.length > 1 ? args[1] : TableDrivenPreAnalysis.DEFAULT_RULES_FILE;
+
+        ManualTest.registerAlgorithms();
+
+        List<TestCase> testCases = TestCaseLoader.loadTestCasesFromDirectory(subDir);
+        if (testCases.isEmpty()) {
+            System.err.println("No test cases found in testcases/" + subDir
+                    + " (run: java WorkloadGenerator --suite tuning)");
+            return;
+        }
+
+        System.out.println("Benchmarking " + testCases.size() + " test case(s) from testcases/" + subDir + "...");
+        List<Record> records = collectRecords(testCases);
+
+        TreeNode root = fit(records, 0, false);
+        List<String> lines = emitRules(root, subDir, records.size());
+
+        try {
+            Path path = Paths.get(outFile);
+            if (path.getParent() != null && !Files.exists(path.getParent()) && Files.exists(Paths.get("..", "testcases"))) {
+                // Running from src/, keep the rules next to the testcases directory
+                path = Paths.get("..", outFile);
+            }
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.write(path, lines);
+            System.out.println("Wrote " + countNodes(root) + " node(s) to " + path);
+        } catch (IOException e) {
+            System.err.println("Error writing rules file " + outFile + ": " + e.getMessage());
+            return;
+        }
+
+        printSummary(records, root);
+    }
+
+    /**
+     * Measure features and per-algorithm times for every test case
+     */
+    static List<Record> collectRecords(List<TestCase> testCases) {
+        // Any fixed choice works, runComparison times every registered algorithm anyway
+        PreAnalysis probe = new PreAnalysis() {
+            @Override
+            public String chooseAlgorithm(String text, String pattern) {
+                return "Naive";
+            }
+
+            @Override
+            public String getStrategyDescription() {
+                return "Tuner probe";
+            }
+        };
+
+        List<Record> records = new ArrayList<>();
+        for (TestCase testCase : testCases) {
+            List<PreAnalysisComparison.ComparisonResult> results =
+                    PreAnalysisComparison.runComparison(probe, Collections.singletonList(testCase));
+            if (results.isEmpty()) {
+                continue;
+            }
+
+            Record record = new Record();
+            record.name = testCase.getName();
+            String text = testCase.getText();
+            String pattern = testCase.getPattern();
+            record.features[0] = text.length();
+            record.features[1] = pattern.length();
+
+            if (!pattern.isEmpty()) {
+                StudentPreAnalysis.PatternAnalysis analysis = null;
+                long start = System.nanoTime();
+                for (int i = 0; i < 5; i++) {
+                    analysis = StudentPreAnalysis.analyzePattern(pattern);
+                }
+                record.patternAnalysisNanos = (System.nanoTime() - start) / 5;
+                record.features[2] = analysis.uniqueChars;
+                record.features[3] = analysis.repetitionRatio;
+            }
+
+            // Only algorithms that produce the expected answer are candidates
+            for (Map.Entry<String, Long> entry : results.get(0).allAlgorithmTimes.entrySet()) {
+                if (producesExpected(entry.getKey(), testCase)) {
+                    record.times.put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (!record.times.isEmpty()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private static boolean producesExpected(String algorithmName, TestCase testCase) {
+        try {
+            return Solution.byName(algorithmName).Solve(testCase.getText(), testCase.getPattern())
+                    .equals(testCase.getExpectedResult());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Greedily grow a tree that minimizes the summed time of the chosen algorithms
+     */
+    static TreeNode fit(List<Record> records, int depth, boolean patternAnalyzed) {
+        TreeNode leaf = bestLeaf(records);
+        if (depth >= MAX_DEPTH || records.size() < 2 * MIN_LEAF_SIZE) {
+            return leaf;
+        }
+
+        long bestCost = leaf.cost;
+        int bestFeature = -1;
+        double bestThreshold = 0;
+
+        for (int f = 0; f < FEATURES.length; f++) {
+            final int feature = f;
+            List<Record> sorted = new ArrayList<>(records);
+            sorted.sort(Comparator.comparingDouble(r -> r.features[feature]));
+
+            long overhead = analysisOverhead(records, f, patternAnalyzed);
+            for (int i = MIN_LEAF_SIZE; i <= sorted.size() - MIN_LEAF_SIZE; i++) {
+                double lower = sorted.get(i - 1).features[f];
+                double upper = sorted.get(i).features[f];
+                if (lower == upper) {
+                    continue;
+                }
+                long cost = bestLeaf(sorted.subList(0, i)).cost
+                        + bestLeaf(sorted.subList(i, sorted.size())).cost
+                        + overhead;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestFeature = f;
+                    bestThreshold = (lower + upper) / 2;
+                }
+            }
+        }
+
+        if (bestFeature < 0 || leaf.cost - bestCost < leaf.cost * MIN_GAIN_FRACTION) {
+            return leaf;
+        }
+
+        List<Record> left = new ArrayList<>();
+        List<Record> right = new ArrayList<>();
+        for (Record record : records) {
+            if (record.features[bestFeature] <= bestThreshold) {
+                left.add(record);
+            } else {
+                right.add(record);
+            }
+        }
+
+        boolean analyzed = patternAnalyzed || isPatternFeature(bestFeature);
+        TreeNode node = new TreeNode();
+        node.feature = bestFeature;
+        node.threshold = bestThreshold;
+        node.left = fit(left, depth + 1, analyzed);
+        node.right = fit(right, depth + 1, analyzed);
+        node.cost = node.left.cost + node.right.cost + analysisOverhead(records, bestFeature, patternAnalyzed);
+        return node;
+    }
+
+    /**
+     * Pattern features cost an analyzePattern call for every case that reaches the node
+     * splitting on them, unless an ancestor already paid for it
+     */
+    private static long analysisOverhead(List<Record> records, int feature, boolean patternAnalyzed) {
+        long overhead = 0;
+        if (isPatternFeature(feature) && !patternAnalyzed) {
+            for (Record record : records) {
+                overhead += record.patternAnalysisNanos;
+            }
+        }
+        return overhead;
+    }
+
+    /**
+     * The single algorithm with the lowest total time over the given records
+     */
+    private static TreeNode bestLeaf(List<Record> records) {
+        Map<String, Long> totals = new TreeMap<>();
+        Set<String> failed = new HashSet<>();
+        for (Record record : records) {
+            for (Map.Entry<String, Long> entry : record.times.entrySet()) {
+                totals.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+        }
+        // An algorithm that failed any case here must never be picked for it
+        for (Record record : records) {
+            for (String algorithm : totals.keySet()) {
+                if (!record.times.containsKey(algorithm)) {
+                    failed.add(algorithm);
+                }
+            }
+        }
+
+        TreeNode leaf = new TreeNode();
+        leaf.cost = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : totals.entrySet()) {
+            if (!failed.contains(entry.getKey()) && entry.getValue() < leaf.cost) {
+                leaf.cost = entry.getValue();
+                leaf.algorithm = entry.getKey();
+            }
+        }
+        return leaf;
+    }
+
+    private static boolean isPatternFeature(int feature) {
+        return feature >= 2;
+    }
+
+    /**
+     * Serialize the tree in the format read by TableDrivenPreAnalysis
+     */
+    static List<String> emitRules(TreeNode root, String subDir, int caseCount) {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Generated by ThresholdTuner from " + caseCount + " case(s) in testcases/" + subDir);
+        lines.add("# <id> split <feature> <threshold> <leftId> <rightId>  (left when feature <= threshold)");
+        lines.add("# <id> leaf <Algorithm>");
+
+        // Breadth-first numbering keeps the root at id 0
+        List<TreeNode> order = new ArrayList<>();
+        order.add(root);
+        for (int i = 0; i < order.size(); i++) {
+            TreeNode node = order.get(i);
+            if (node.algorithm == null) {
+                order.add(node.left);
+                order.add(node.right);
+            }
+        }
+
+        for (int i = 0; i < order.size(); i++) {
+            TreeNode node = order.get(i);
+            if (node.algorithm != null) {
+                lines.add(i + " leaf " + node.algorithm);
+            } else {
+                lines.add(i + " split " + FEATURES[node.feature] + " " + node.threshold + " "
+                        + order.indexOf(node.left) + " " + order.indexOf(node.right));
+            }
+        }
+        return lines;
+    }
+
+    private static int countNodes(TreeNode node) {
+        return node.algorithm != null ? 1 : 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
+    /**
+     * Compare the tree against always running one algorithm and against the per-case optimum
+     */
+    private static void printSummary(List<Record> records, TreeNode root) {
+        long oracle = 0;
+        for (Record record : records) {
+            oracle += Collections.min(record.times.values());
+        }
+
+        TreeNode single = bestLeaf(records);
+
+        System.out.println();
+        System.out.println("TUNING SUMMARY:");
+        System.out.println("-".repeat(80));
+        System.out.printf("Cases used:                      %d%n", records.size());
+        System.out.printf("Best single algorithm (%-9s): %.2f μs%n", single.algorithm, single.cost / 1000.0);
+        System.out.printf("Fitted tree (incl. analysis):    %.2f μs%n", root.cost / 1000.0);
+        System.out.printf("Per-case optimum (no analysis):  %.2f μs%n", oracle / 1000.0);
+        System.out.println("-".repeat(80));
+    }
+}
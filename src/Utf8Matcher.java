@@ -0,0 +1,173 @@
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Searches UTF-8 encoded text without decoding it.
+ *
+ * The pattern is encoded to UTF-8 once. Text bytes are wrapped as a Latin-1 String (one byte per
+ * char, which compact strings store as-is, so there is no decode pass and no UTF-16 inflation)
+ * and any Solution runs on it unchanged. Because UTF-8 is self-synchronizing, a match of a valid
+ * pattern always starts on a character boundary, so byte matches are exactly the char matches.
+ *
+ * Byte offsets are converted to char (UTF-16) or code point offsets only for reported matches,
+ * through an OffsetIndex that records the counts every CHECKPOINT_BYTES bytes and is built only
+ * as far as the largest offset asked for.
+ */
+public class Utf8Matcher {
+
+    static final int CHECKPOINT_BYTES = 4096;
+
+    private final boolean emptyPattern;
+    private final Solution.Prepared prepared;
+
+    /**
+     * @throws IllegalArgumentException If the pattern has an unpaired surrogate, which has no
+     *                                  UTF-8 encoding (String.getBytes would search for '?' instead)
+     */
+    public Utf8Matcher(String pattern, Solution algorithm) {
+        this.emptyPattern = pattern.isEmpty();
+        this.prepared = algorithm.prepare(asByteString(encode(pattern)));
+    }
+
+    private static byte[] encode(String pattern) {
+        try {
+            ByteBuffer encoded = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .encode(CharBuffer.wrap(pattern));
+            return Arrays.copyOf(encoded.array(), encoded.limit());
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("Pattern is not valid UTF-16: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Byte offsets of every match in UTF-8 text
+     */
+    public MatchRuns findBytes(byte[] utf8Text) {
+        return findBytes(utf8Text, utf8Text.length);
+    }
+
+    public MatchRuns findBytes(byte[] utf8Text, int length) {
+        return prepared.SolveRuns(asByteString(utf8Text, length));
+    }
+
+    /**
+     * Char (UTF-16) offsets of every match, the same result Solve gives on the decoded text
+     */
+    public MatchRuns find(byte[] utf8Text) {
+        return find(utf8Text, utf8Text.length);
+    }
+
+    public MatchRuns find(byte[] utf8Text, int length) {
+        MatchRuns chars = new MatchRuns();
+        findInto(utf8Text, length, chars);
+        return chars;
+    }
+
+    /**
+     * Stream the char offsets of every match to a sink
+     */
+    public void findInto(byte[] utf8Text, int length, MatchSink sink) {
+        findInByteString(asByteString(utf8Text, length), sink);
+    }
+
+    /**
+     * Stream the char offsets of every match in text already wrapped with asByteString
+     * (callers that read a file can drop their byte[] as soon as it is wrapped)
+     */
+    public void findInByteString(String utf8Bytes, MatchSink sink) {
+        OffsetIndex index = new OffsetIndex(utf8Bytes);
+        if (emptyPattern) {
+            // Every char boundary, not every byte
+            sink.acceptRun(0, 1, index.charOffset(utf8Bytes.length()) + 1);
+            return;
+        }
+        prepared.SolveInto(utf8Bytes, byteOffset -> sink.accept(index.charOffset(byteOffset)));
+    }
+
+    /**
+     * Bytes as a String with one char per byte (chars 0-255)
+     */
+    static String asByteString(byte[] bytes) {
+        return asByteString(bytes, bytes.length);
+    }
+
+    static String asByteString(byte[] bytes, int length) {
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Byte offset to char / code point offset, with sparse checkpoints built on demand
+     */
+    public static class OffsetIndex {
+        private final String bytes;     // one char per byte, see asByteString
+        private final int length;
+        // chars[k] and codePoints[k]: counts before byte k * CHECKPOINT_BYTES
+        private int[] chars = new int[16];
+        private int[] codePoints = new int[16];
+        private int checkpoints = 1;
+
+        public OffsetIndex(byte[] utf8Text, int length) {
+            this(asByteString(utf8Text, length));
+        }
+
+        OffsetIndex(String utf8Bytes) {
+            this.bytes = utf8Bytes;
+            this.length = utf8Bytes.length();
+        }
+
+        /**
+         * UTF-16 offset of the character starting at byteOffset (or the text length at the end)
+         */
+        public int charOffset(int byteOffset) {
+            int k = checkpointFor(byteOffset);
+            return chars[k] + count(k * CHECKPOINT_BYTES, byteOffset, true);
+        }
+
+        /**
+         * Code point offset of the character starting at byteOffset
+         */
+        public int codePointOffset(int byteOffset) {
+            int k = checkpointFor(byteOffset);
+            return codePoints[k] + count(k * CHECKPOINT_BYTES, byteOffset, false);
+        }
+
+        // Extend the checkpoints up to byteOffset and return the last one at or before it
+        private int checkpointFor(int byteOffset) {
+            if (byteOffset < 0 || byteOffset > length) {
+                throw new IndexOutOfBoundsException("Byte offset " + byteOffset + " outside 0.." + length);
+            }
+            int k = byteOffset / CHECKPOINT_BYTES;
+            while (checkpoints <= k) {
+                if (checkpoints == chars.length) {
+                    chars = Arrays.copyOf(chars, checkpoints * 2);
+                    codePoints = Arrays.copyOf(codePoints, checkpoints * 2);
+                }
+                int from = (checkpoints - 1) * CHECKPOINT_BYTES;
+                int to = from + CHECKPOINT_BYTES;
+                chars[checkpoints] = chars[checkpoints - 1] + count(from, to, true);
+                codePoints[checkpoints] = codePoints[checkpoints - 1] + count(from, to, false);
+                checkpoints++;
+            }
+            return k;
+        }
+
+        // Characters starting in bytes[from, to): every non-continuation byte starts one,
+        // and a 4-byte sequence is a surrogate pair (two UTF-16 chars)
+        private int count(int from, int to, boolean utf16) {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                int b = bytes.charAt(i);
+                if ((b & 0xC0) != 0x80) {
+                    count += (utf16 && b >= 0xF0) ? 2 : 1;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * MatchSink that writes positions to a channel as delta-encoded unsigned varints
+ * (the same encoding BinaryCorpus uses for expected results).
+ *
+ * Each position is stored as the gap to the previous one (the first as is), 7 bits per byte
+ * with the high bit set on all but the last byte, so dense matches take one byte each. Bytes
+ * go into a pooled direct buffer that is flushed to the channel whenever it fills up, so a
+ * scan with any number of matches writes in constant memory. There is no header or count:
+ * the stream ends where the channel ends. Read it back with Reader.
+ *
+ * Usage:
+ *   java VarintChannelSink dump matches.bin   - Print the positions stored in a file
+ */
+public class VarintChannelSink implements MatchSink, Closeable {
+
+    static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_VARINT_BYTES = 5;  // positions are ints
+
+    // Direct buffers are expensive to allocate, so closed sinks and readers hand theirs back
+    private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+    private int previous;
+    private long count;
+
+    public VarintChannelSink(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = acquire();
+    }
+
+    @Override
+    public void accept(int position) {
+        if (buffer.remaining() < MAX_VARINT_BYTES) {
+            flush();
+        }
+        int delta = position - previous;
+        previous = position;
+        while ((delta & ~0x7F) != 0) {
+            buffer.put((byte) ((delta & 0x7F) | 0x80));
+            delta >>>= 7;
+        }
+        buffer.put((byte) delta);
+        count++;
+    }
+
+    /**
+     * Write everything buffered so far to the channel
+     * @throws UncheckedIOException if the channel fails (accept cannot throw IOException)
+     */
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing matches", e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Number of positions written
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Flush and return the buffer to the pool; the channel stays open (it belongs to the caller)
+     */
+    @Override
+    public void close() {
+        if (buffer != null) {
+            try {
+                flush();
+            } finally {
+                release(buffer);
+                buffer = null;
+            }
+        }
+    }
+
+    private static ByteBuffer acquire() {
+        ByteBuffer buffer = POOL.poll();
+        return buffer != null ? buffer.clear() : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    private static void release(ByteBuffer buffer) {
+        POOL.offer(buffer);
+    }
+
+    /**
+     * Decodes a stream written by VarintChannelSink, reading the channel in buffer-sized chunks
+     */
+    public static class Reader implements PrimitiveIterator.OfInt, Closeable {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer;
+        private boolean endOfChannel;
+        private int previous;
+
+        public Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+            this.buffer = acquire();
+            buffer.limit(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return fill(1);
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            // A varint may straddle two chunks, make sure all of it is buffered
+            fill(MAX_VARINT_BYTES);
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (!buffer.hasRemaining()) {
+                    throw new UncheckedIOException(new IOException("Truncated match stream"));
+                }
+                b = buffer.get();
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += delta;
+            return previous;
+        }
+
+        // Try to have at least `bytes` bytes buffered; false when the stream has no more data
+        private boolean fill(int bytes) {
+            if (buffer.remaining() >= bytes || endOfChannel) {
+                return buffer.hasRemaining();
+            }
+            buffer.compact();
+            try {
+                while (buffer.position() < bytes && !endOfChannel) {
+                    if (channel.read(buffer) < 0) {
+                        endOfChannel = true;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading matches", e);
+            } finally {
+                buffer.flip();
+            }
+            return buffer.hasRemaining();
+        }
+
+        /**
+         * Return the buffer to the pool; the channel stays open (it belongs to the caller)
+         */
+        @Override
+        public void close() {
+            if (buffer != null) {
+                release(buffer);
+                buffer = null;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !args[0].equalsIgnoreCase("dump")) {
+            System.out.println("Usage: java VarintChannelSink dump <matches.bin>");
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(args[1]), StandardOpenOption.READ);
+             Reader reader = new Reader(channel)) {
+            long count = 0;
+            while (reader.hasNext()) {
+                System.out.println(reader.nextInt());
+                count++;
+            }
+            System.err.println(count + " match(es)");
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading " + args[1] + ": " + e.getMessage());
+        }
+    }
+}
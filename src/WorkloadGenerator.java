@@ -0,0 +1,527 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Generates large synthetic test cases in the JSON format read by TestCaseLoader.
+ *
+ * The text is streamed to disk one character at a time while a KMP automaton computes the
+ * expected result, so the generator never holds the text in memory.
+ *
+ * Usage:
+ *   java WorkloadGenerator                         - Write the standard suite to testcases/generated
+ *   java WorkloadGenerator --suite tuning          - Write the ThresholdTuner grid to testcases/generated
+ *   java WorkloadGenerator [options]               - Write a single case
+ *
+ * Options:
+ *   --out DIR           output directory (default: testcases/generated)
+ *   --suite S           standard | tuning: write a whole suite instead of one case
+ *   --name NAME         test case name (default: derived from the options)
+ *   --alphabet A        binary | dna | protein | english | cjk   (default: english)
+ *   --size S            text length, e.g. 4096, 64K, 10M, 1G    (default: 64K)
+ *   --pattern-length M  pattern length                           (default: 8)
+ *   --density D         planted occurrences per million chars    (default: 100)
+ *   --placement P       random | uniform | start | end           (default: random)
+ *   --family F          random | naive-worst | bm-worst | rk-collision (default: random)
+ *   --seed S            random seed                              (default: 42)
+ *   --sidecar           write the text to NAME.txt and reference it via "textFile"
+ *                       (always done for texts of 64M chars or more)
+ */
+public class WorkloadGenerator {
+
+    private static final String OUTPUT_DIR = "generated";
+    private static final long MAX_TEXT_LENGTH = Integer.MAX_VALUE - 8; // Java String limit
+    private static final int RABIN_KARP_PRIME = 101;                   // must match RabinKarp.PRIME
+    private static final long SIDECAR_THRESHOLD = 64L * 1024 * 1024;
+
+    private static final String DNA = "ACGT";
+    private static final String PROTEIN = "ACDEFGHIKLMNPQRSTVWY";
+    private static final int CJK_BASE = 0x4E00;
+    private static final int CJK_RANGE = 3000;
+
+    // Seed corpus for the English character model (lowercase letters, space and light punctuation)
+    private static final String ENGLISH_SEED =
+            "the quick brown fox jumps over the lazy dog while the old man watched from the porch. "
+            + "string matching is the problem of finding every place where a pattern occurs in a text, "
+            + "and it shows up in search engines, editors, network filters and the analysis of genomes. "
+            + "there are many ways to solve it, from the simple method that tries every position to "
+            + "clever algorithms that skip ahead by looking at the characters they have already seen. "
+            + "in practice the right choice depends on the length of the pattern, the size of the "
+            + "alphabet and how often the pattern repeats itself. when the text is natural language "
+            + "most characters are common letters, spaces appear every few words, and some letters "
+            + "such as q, x and z are rare, which is exactly what makes skipping algorithms fast. "
+            + "she said that they would meet again in the morning, after the rain had stopped and "
+            + "the roads were dry enough to travel on. nobody knew how long the journey would take.";
+
+    /**
+     * Parameters of one generated test case
+     */
+    static class Spec {
+        String name;
+        String alphabet = "english";
+        long size = 64 * 1024;
+        int patternLength = 8;
+        double density = 100;
+        String placement = "random";
+        String family = "random";
+        long seed = 42;
+        boolean sidecar;
+    }
+
+    /**
+     * Produces text characters for one alphabet
+     */
+    interface CharSource {
+        char next();
+    }
+
+    public static void main(String[] args) {
+        Path outDir = defaultOutputDir();
+        List<Spec> specs = new ArrayList<>();
+
+        if (args.length == 0) {
+            specs.addAll(standardSuite());
+        } else {
+            Spec spec = new Spec();
+            String suite = null;
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : null;
+                switch (args[i]) {
+                    case "--out":
+                        outDir = Paths.get(value);
+                        break;
+                    case "--suite":
+                        suite = value;
+                        break;
+                    case "--name":
+                        spec.name = value;
+                        break;
+                    case "--alphabet":
+                        spec.alphabet = value;
+                        break;
+                    case "--size":
+                        spec.size = parseSize(value);
+                        break;
+                    case "--pattern-length":
+                        spec.patternLength = Integer.parseInt(value);
+                        break;
+                    case "--density":
+                        spec.density = Double.parseDouble(value);
+                        break;
+                    case "--placement":
+                        spec.placement = value;
+                        break;
+                    case "--family":
+                        spec.family = value;
+                        break;
+                    case "--seed":
+                        spec.seed = Long.parseLong(value);
+                        break;
+                    case "--sidecar":
+                        spec.sidecar = true;
+                        continue; // flag without a value
+                    default:
+                        System.err.println("Unknown option: " + args[i]);
+                        return;
+                }
+                i++;
+            }
+            if (suite == null) {
+                specs.add(spec);
+            } else if (suite.equals("standard")) {
+                specs.addAll(standardSuite());
+            } else if (suite.equals("tuning")) {
+                specs.addAll(tuningSuite());
+            } else {
+                System.err.println("Unknown suite: " + suite);
+                return;
+            }
+        }
+
+        try {
+            Files.createDirectories(outDir);
+            for (Spec spec : specs) {
+                long start = System.nanoTime();
+                Path file = generate(spec, outDir);
+                System.out.printf("Wrote %-60s (%.1f ms)%n", file, (System.nanoTime() - start) / 1_000_000.0);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error generating test cases: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Every alphabet at two sizes plus the adversarial families
+     */
+    static List<Spec> standardSuite() {
+        List<Spec> specs = new ArrayList<>();
+        String[] alphabets = {"binary", "dna", "protein", "english", "cjk"};
+        long[] sizes = {64 * 1024, 1024 * 1024};
+        for (String alphabet : alphabets) {
+            for (long size : sizes) {
+                Spec spec = new Spec();
+                spec.alphabet = alphabet;
+                spec.size = size;
+                spec.patternLength = alphabet.equals("binary") ? 24 : 12;
+                specs.add(spec);
+            }
+        }
+
+        Spec naiveWorst = new Spec();
+        naiveWorst.family = "naive-worst";
+        naiveWorst.size = 1024 * 1024;
+        naiveWorst.patternLength = 64;
+        specs.add(naiveWorst);
+
+        Spec bmWorst = new Spec();
+        bmWorst.family = "bm-worst";
+        bmWorst.size = 256 * 1024;
+        bmWorst.patternLength = 32;
+        specs.add(bmWorst);
+
+        Spec rkCollision = new Spec();
+        rkCollision.family = "rk-collision";
+        rkCollision.size = 1024 * 1024;
+        rkCollision.patternLength = 64;
+        specs.add(rkCollision);
+
+        return specs;
+    }
+
+    /**
+     * Grid for ThresholdTuner: every alphabet at four sizes and five pattern lengths, plus the
+     * adversarial families at two sizes, so each leaf of the fitted tree is backed by many cases
+     */
+    static List<Spec> tuningSuite() {
+        List<Spec> specs = new ArrayList<>();
+        String[] alphabets = {"binary", "dna", "protein", "english", "cjk"};
+        long[] sizes = {256, 4 * 1024, 32 * 1024, 256 * 1024};
+        int[] patternLengths = {2, 4, 8, 16, 64};
+        long seed = 1000;
+        for (String alphabet : alphabets) {
+            for (long size : sizes) {
+                for (int m : patternLengths) {
+                    Spec spec = new Spec();
+                    spec.alphabet = alphabet;
+                    spec.size = size;
+                    spec.patternLength = m;
+                    spec.density = 1000;
+                    spec.seed = seed++;
+                    specs.add(spec);
+                }
+            }
+        }
+
+        String[] families = {"naive-worst", "bm-worst", "rk-collision"};
+        for (String family : families) {
+            for (long size : new long[]{4 * 1024, 128 * 1024}) {
+                Spec spec = new Spec();
+                spec.family = family;
+                spec.size = size;
+                spec.patternLength = 32;
+                spec.seed = seed++;
+                specs.add(spec);
+            }
+        }
+        return specs;
+    }
+
+    /**
+     * Generate one test case file and return its path
+     */
+    static Path generate(Spec spec, Path outDir) throws IOException {
+        if (spec.size > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Text size " + spec.size + " exceeds the Java String limit");
+        }
+        if (spec.patternLength < 1) {
+            throw new IllegalArgumentException("Pattern length must be at least 1");
+        }
+
+        int n = (int) spec.size;
+        int m = spec.patternLength;
+        Random random = new Random(spec.seed);
+
+        // Adversarial families fix both the text source and the pattern
+        CharSource source;
+        String pattern;
+        switch (spec.family) {
+            case "random":
+                source = charSource(spec.alphabet, random);
+                pattern = take(source, m);
+                break;
+            case "naive-worst":
+                // a^n against a^(m-1)b: every alignment compares m characters, no matches
+                source = () -> 'a';
+                pattern = "a".repeat(m - 1) + "b";
+                break;
+            case "bm-worst":
+                // a^n against a^m: every position matches and BoyerMoore rescans the whole window
+                source = () -> 'a';
+                pattern = "a".repeat(m);
+                break;
+            case "rk-collision":
+                // The last pattern char is congruent to 'a' mod PRIME, so every window of a^n
+                // has the pattern's hash and RabinKarp verifies m-1 characters at each position
+                source = () -> 'a';
+                pattern = "a".repeat(m - 1) + (char) ('a' + RABIN_KARP_PRIME);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown family: " + spec.family);
+        }
+
+        if (spec.name == null) {
+            String kind = spec.family.equals("random") ? spec.alphabet : spec.family;
+            spec.name = String.format("gen_%s_%s_m%d", kind, formatSize(spec.size), m);
+        }
+
+        int[] planted = plantedPositions(spec, n, m, random);
+        Path file = outDir.resolve(spec.name + ".json");
+
+        IntList expected = new IntList();
+        boolean sidecar = spec.sidecar || spec.size >= SIDECAR_THRESHOLD;
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write("{\n");
+            writer.write("  \"name\": \"" + spec.name + "\",\n");
+            if (sidecar) {
+                // Huge texts go to a plain file that TestCaseLoader reads only when needed
+                Path textFile = outDir.resolve(spec.name + ".txt");
+                try (Writer textWriter = new BufferedWriter(
+                        Files.newBufferedWriter(textFile, StandardCharsets.UTF_8), 1 << 16)) {
+                    streamText(textWriter, source, pattern, n, planted, expected);
+                }
+                writer.write("  \"textFile\": \"" + textFile.getFileName() + "\",\n");
+            } else {
+                writer.write("  \"text\": \"");
+                streamText(writer, source, pattern, n, planted, expected);
+                writer.write("\",\n");
+            }
+            writer.write("  \"pattern\": \"" + pattern + "\",\n");
+            writer.write("  \"expected\": \"");
+            for (int i = 0; i < expected.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(Integer.toString(expected.get(i)));
+            }
+            writer.write("\"\n");
+            writer.write("}\n");
+        }
+        return file;
+    }
+
+    /**
+     * Write n text characters, inserting the pattern at the planted positions, while a KMP
+     * automaton records every occurrence (planted or accidental)
+     */
+    private static void streamText(Writer writer, CharSource source, String pattern, int n,
+                                   int[] planted, IntList expected) throws IOException {
+        int m = pattern.length();
+        int[] lps = buildLps(pattern);
+        int j = 0;
+        int nextPlant = 0;
+        int plantOffset = -1; // index into pattern while a planted copy is being written
+
+        for (int pos = 0; pos < n; pos++) {
+            char c;
+            if (plantOffset < 0 && nextPlant < planted.length && planted[nextPlant] == pos) {
+                plantOffset = 0;
+                nextPlant++;
+            }
+            if (plantOffset >= 0) {
+                c = pattern.charAt(plantOffset++);
+                if (plantOffset == m) {
+                    plantOffset = -1;
+                }
+            } else {
+                c = source.next();
+            }
+            writer.write(c);
+
+            while (j > 0 && c != pattern.charAt(j)) {
+                j = lps[j - 1];
+            }
+            if (c == pattern.charAt(j)) {
+                j++;
+            }
+            if (j == m) {
+                expected.add(pos - m + 1);
+                j = lps[j - 1];
+            }
+        }
+    }
+
+    /**
+     * Sorted, non-overlapping positions where a copy of the pattern is inserted
+     */
+    private static int[] plantedPositions(Spec spec, int n, int m, Random random) {
+        if (n < m) {
+            return new int[0];
+        }
+        int count = (int) Math.min((long) (spec.size * spec.density / 1_000_000.0), (n / m));
+        int[] positions = new int[count];
+        int slots = n - m + 1;
+
+        for (int i = 0; i < count; i++) {
+            switch (spec.placement) {
+                case "uniform":
+                    positions[i] = (int) ((long) i * slots / count);
+                    break;
+                case "start":
+                    positions[i] = i * m;
+                    break;
+                case "end":
+                    positions[i] = slots - 1 - (count - 1 - i) * m;
+                    break;
+                case "random":
+                    positions[i] = random.nextInt(slots);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown placement: " + spec.placement);
+            }
+        }
+        Arrays.sort(positions);
+
+        // Drop copies that would overlap the previous one
+        IntList kept = new IntList();
+        int lastEnd = -1;
+        for (int position : positions) {
+            if (position >= lastEnd) {
+                kept.add(position);
+                lastEnd = position + m;
+            }
+        }
+        return kept.toArray();
+    }
+
+    /**
+     * Character source for the named alphabet
+     */
+    static CharSource charSource(String alphabet, Random random) {
+        switch (alphabet) {
+            case "binary":
+                return () -> random.nextBoolean() ? '1' : '0';
+            case "dna":
+                return () -> DNA.charAt(random.nextInt(DNA.length()));
+            case "protein":
+                return () -> PROTEIN.charAt(random.nextInt(PROTEIN.length()));
+            case "cjk":
+                return () -> (char) (CJK_BASE + random.nextInt(CJK_RANGE));
+            case "english":
+                return englishModel(random);
+            default:
+                throw new IllegalArgumentException("Unknown alphabet: " + alphabet);
+        }
+    }
+
+    /**
+     * First-order Markov model trained on ENGLISH_SEED
+     */
+    private static CharSource englishModel(Random random) {
+        // Successor lists: each char maps to every char that followed it in the seed
+        Map<Character, StringBuilder> successors = new HashMap<>();
+        for (int i = 0; i + 1 < ENGLISH_SEED.length(); i++) {
+            successors.computeIfAbsent(ENGLISH_SEED.charAt(i), k -> new StringBuilder())
+                    .append(ENGLISH_SEED.charAt(i + 1));
+        }
+        final char[] previous = {' '};
+        return () -> {
+            StringBuilder next = successors.get(previous[0]);
+            if (next == null) {
+                next = successors.get(' ');
+            }
+            previous[0] = next.charAt(random.nextInt(next.length()));
+            return previous[0];
+        };
+    }
+
+    private static String take(CharSource source, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append(source.next());
+        }
+        return sb.toString();
+    }
+
+    private static int[] buildLps(String pattern) {
+        int m = pattern.length();
+        int[] lps = new int[m];
+        int len = 0;
+        for (int i = 1; i < m; ) {
+            if (pattern.charAt(i) == pattern.charAt(len)) {
+                lps[i++] = ++len;
+            } else if (len != 0) {
+                len = lps[len - 1];
+            } else {
+                lps[i++] = 0;
+            }
+        }
+        return lps;
+    }
+
+    /**
+     * Parse sizes like 4096, 64K, 10M or 1G (binary multiples)
+     */
+    static long parseSize(String value) {
+        String s = value.trim().toUpperCase();
+        long multiplier = 1;
+        if (s.endsWith("K")) {
+            multiplier = 1024L;
+        } else if (s.endsWith("M")) {
+            multiplier = 1024L * 1024;
+        } else if (s.endsWith("G")) {
+            multiplier = 1024L * 1024 * 1024;
+        }
+        if (multiplier > 1) {
+            s = s.substring(0, s.length() - 1);
+        }
+        return Long.parseLong(s) * multiplier;
+    }
+
+    private static String formatSize(long size) {
+        if (size % (1024L * 1024 * 1024) == 0) return size / (1024L * 1024 * 1024) + "G";
+        if (size % (1024L * 1024) == 0) return size / (1024L * 1024) + "M";
+        if (size % 1024 == 0) return size / 1024 + "K";
+        return Long.toString(size);
+    }
+
+    private static Path defaultOutputDir() {
+        // Same lookup as TestCaseLoader (for running from different directories)
+        Path testcases = Paths.get("testcases");
+        if (!Files.exists(testcases) && Files.exists(Paths.get("..", "testcases"))) {
+            testcases = Paths.get("..", "testcases");
+        }
+        return testcases.resolve(OUTPUT_DIR);
+    }
+
+    /**
+     * Growable int array (avoids boxing millions of match offsets)
+     */
+    static class IntList {
+        private int[] data = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int get(int index) {
+            return data[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
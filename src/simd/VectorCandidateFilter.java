@@ -0,0 +1,38 @@
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernel for SimdFilter (needs the jdk.incubator.vector module).
+ *
+ * Kept out of src/*.java so the main build does not depend on an incubator module; test.sh
+ * compiles it separately and SimdFilter loads it by name, falling back to its scalar filter.
+ *
+ * Compile (from the project root, after the main sources):
+ *   javac --add-modules jdk.incubator.vector -cp src -d src src/simd/VectorCandidateFilter.java
+ * Run with:
+ *   java --add-modules jdk.incubator.vector ...
+ */
+class VectorCandidateFilter implements SimdFilter.CandidateFilter {
+
+    // Widest shape the CPU supports: 8 chars (SSE), 16 (AVX2) or 32 (AVX-512), all divide 64
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public long candidates(char[] chars, int i, char first, char last, int lastOffset) {
+        long mask = 0;
+        for (int k = 0; k < 64; k += LANES) {
+            VectorMask<Short> hit = ShortVector.fromCharArray(SPECIES, chars, i + k)
+                    .compare(VectorOperators.EQ, (short) first)
+                    .and(ShortVector.fromCharArray(SPECIES, chars, i + k + lastOffset)
+                            .compare(VectorOperators.EQ, (short) last));
+            // anyTrue is a single vector test; most blocks have no candidate at all
+            if (hit.anyTrue()) {
+                mask |= hit.toLong() << k;
+            }
+        }
+        return mask;
+    }
+}
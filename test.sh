@@ -8,9 +8,16 @@ javac src/*.java
 
 if [ $? -eq 0 ]; then
     echo "Compilation successful!"
+
+    # Optional Vector API kernel for SimdFilter; without it SimdFilter uses its scalar filter
+    JAVA_OPTS=""
+    if javac --add-modules jdk.incubator.vector -cp src -d src src/simd/*.java 2>/dev/null; then
+        JAVA_OPTS="--add-modules jdk.incubator.vector"
+        echo "Vector API kernel enabled"
+    fi
     echo ""
     cd src
-    java ManualTest "$@"
+    java $JAVA_OPTS ManualTest "$@"
 else
     echo "Compilation failed! Please fix the errors and try again."
     exit 1